@@ -0,0 +1,102 @@
+-- -----------------------------------------------------
+-- Upgrades a `movies` schema created by an earlier movies.sql to the current one.
+-- movies.sql drops and recreates the schema, so existing databases run this script instead, once,
+-- with the application stopped.
+-- -----------------------------------------------------
+SET @OLD_UNIQUE_CHECKS=@@UNIQUE_CHECKS, UNIQUE_CHECKS=0;
+SET @OLD_FOREIGN_KEY_CHECKS=@@FOREIGN_KEY_CHECKS, FOREIGN_KEY_CHECKS=0;
+SET @OLD_SQL_MODE=@@SQL_MODE, SQL_MODE='ONLY_FULL_GROUP_BY,STRICT_TRANS_TABLES,NO_ZERO_IN_DATE,NO_ZERO_DATE,ERROR_FOR_DIVISION_BY_ZERO,NO_ENGINE_SUBSTITUTION';
+
+USE `movies` ;
+
+-- -----------------------------------------------------
+-- Optimistic locking versions and filter indexes
+-- -----------------------------------------------------
+ALTER TABLE `movies`.`person`
+  ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0,
+  ADD INDEX `idx_person_first_name` (`first_name` ASC) VISIBLE,
+  ADD INDEX `idx_person_last_name` (`last_name` ASC) VISIBLE,
+  ADD INDEX `idx_person_birth_date` (`birth_date` ASC) VISIBLE;
+
+ALTER TABLE `movies`.`movie`
+  ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0,
+  ADD INDEX `idx_movie_title` (`title` ASC) VISIBLE,
+  ADD INDEX `idx_movie_genre` (`genre` ASC) VISIBLE,
+  ADD INDEX `idx_movie_release_year` (`release_year` ASC) VISIBLE;
+
+-- `idx_review_movie_date_time` starts with `movie_id`, so it takes over the foreign key index.
+ALTER TABLE `movies`.`review`
+  ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0,
+  ADD INDEX `idx_review_movie_date_time` (`movie_id` ASC, `date_time` ASC) VISIBLE,
+  ADD INDEX `idx_review_movie_rating` (`movie_id` ASC, `rating` ASC) VISIBLE,
+  ADD INDEX `idx_review_date_time` (`date_time` ASC) VISIBLE,
+  ADD INDEX `idx_review_rating` (`rating` ASC) VISIBLE;
+
+ALTER TABLE `movies`.`review`
+  DROP INDEX `fk_review_movie1_idx`;
+
+
+-- -----------------------------------------------------
+-- ID blocks
+-- `next_val` must be above every existing ID, otherwise Hibernate hands out IDs that are already taken.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `movies`.`person_seq` (
+  `next_val` BIGINT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`person_seq` (`next_val`)
+SELECT 1 FROM DUAL
+WHERE NOT EXISTS (SELECT * FROM `movies`.`person_seq`);
+
+UPDATE `movies`.`person_seq`
+SET `next_val` = GREATEST(`next_val`, (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movies`.`person`));
+
+CREATE TABLE IF NOT EXISTS `movies`.`movie_seq` (
+  `next_val` BIGINT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`movie_seq` (`next_val`)
+SELECT 1 FROM DUAL
+WHERE NOT EXISTS (SELECT * FROM `movies`.`movie_seq`);
+
+UPDATE `movies`.`movie_seq`
+SET `next_val` = GREATEST(`next_val`, (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movies`.`movie`));
+
+CREATE TABLE IF NOT EXISTS `movies`.`review_seq` (
+  `next_val` BIGINT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`review_seq` (`next_val`)
+SELECT 1 FROM DUAL
+WHERE NOT EXISTS (SELECT * FROM `movies`.`review_seq`);
+
+UPDATE `movies`.`review_seq`
+SET `next_val` = GREATEST(`next_val`, (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movies`.`review`));
+
+
+-- -----------------------------------------------------
+-- Person filmography counts
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `movies`.`person_stats` (
+  `person_id` INT NOT NULL,
+  `as_director` INT NOT NULL DEFAULT 0,
+  `as_actor` INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`person_id`),
+  CONSTRAINT `fk_person_stats_person`
+    FOREIGN KEY (`person_id`)
+    REFERENCES `movies`.`person` (`id`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+DELETE FROM `movies`.`person_stats`;
+
+INSERT INTO `movies`.`person_stats` (`person_id`, `as_director`, `as_actor`)
+SELECT p.`id`,
+       (SELECT COUNT(*) FROM `movies`.`movie` m WHERE m.`director_id` = p.`id`),
+       (SELECT COUNT(DISTINCT a.`movie_id`) FROM `movies`.`actor_ids` a WHERE a.`actor_id` = p.`id`)
+FROM `movies`.`person` p;
+
+SET SQL_MODE=@OLD_SQL_MODE;
+SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS;
+SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS;
@@ -21,7 +21,11 @@ CREATE TABLE IF NOT EXISTS `movies`.`person` (
   `first_name` VARCHAR(64) NOT NULL,
   `last_name` VARCHAR(64) NOT NULL,
   `birth_date` DATE NULL,
-  PRIMARY KEY (`id`));
+  `version` BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`),
+  INDEX `idx_person_first_name` (`first_name` ASC) VISIBLE,
+  INDEX `idx_person_last_name` (`last_name` ASC) VISIBLE,
+  INDEX `idx_person_birth_date` (`birth_date` ASC) VISIBLE);
 
 
 -- -----------------------------------------------------
@@ -33,8 +37,12 @@ CREATE TABLE IF NOT EXISTS `movies`.`movie` (
   `genre` VARCHAR(45) NOT NULL,
   `release_year` YEAR NOT NULL,
   `director_id` INT NOT NULL,
+  `version` BIGINT NOT NULL DEFAULT 0,
   PRIMARY KEY (`id`),
   INDEX `fk_movie_person_idx` (`director_id` ASC) VISIBLE,
+  INDEX `idx_movie_title` (`title` ASC) VISIBLE,
+  INDEX `idx_movie_genre` (`genre` ASC) VISIBLE,
+  INDEX `idx_movie_release_year` (`release_year` ASC) VISIBLE,
   CONSTRAINT `fk_movie_person`
     FOREIGN KEY (`director_id`)
     REFERENCES `movies`.`person` (`id`)
@@ -51,8 +59,12 @@ CREATE TABLE IF NOT EXISTS `movies`.`review` (
   `rating` FLOAT NOT NULL,
   `date_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `movie_id` INT NOT NULL,
+  `version` BIGINT NOT NULL DEFAULT 0,
   PRIMARY KEY (`id`),
-  INDEX `fk_review_movie1_idx` (`movie_id` ASC) VISIBLE,
+  INDEX `idx_review_movie_date_time` (`movie_id` ASC, `date_time` ASC) VISIBLE,
+  INDEX `idx_review_movie_rating` (`movie_id` ASC, `rating` ASC) VISIBLE,
+  INDEX `idx_review_date_time` (`date_time` ASC) VISIBLE,
+  INDEX `idx_review_rating` (`rating` ASC) VISIBLE,
   CONSTRAINT `fk_review_movie1`
     FOREIGN KEY (`movie_id`)
     REFERENCES `movies`.`movie` (`id`)
@@ -85,6 +97,71 @@ CREATE TABLE IF NOT EXISTS `movies`.`actor_ids` (
     ON UPDATE NO ACTION);
 
 
+-- -----------------------------------------------------
+-- Table `movies`.`person_seq`
+-- Person IDs are allocated by Hibernate in blocks from this table, so that person inserts can be batched.
+-- `next_val` is the first ID of the next block.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `movies`.`person_seq` (
+  `next_val` BIGINT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`person_seq` (`next_val`)
+SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movies`.`person`
+WHERE NOT EXISTS (SELECT * FROM `movies`.`person_seq`);
+
+
+-- -----------------------------------------------------
+-- Table `movies`.`movie_seq`
+-- Movie IDs are allocated by Hibernate in blocks from this table, so that movie inserts can be batched.
+-- `next_val` is the first ID of the next block.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `movies`.`movie_seq` (
+  `next_val` BIGINT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`movie_seq` (`next_val`)
+SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movies`.`movie`
+WHERE NOT EXISTS (SELECT * FROM `movies`.`movie_seq`);
+
+
+-- -----------------------------------------------------
+-- Table `movies`.`review_seq`
+-- Review IDs are allocated by Hibernate in blocks from this table, so that review inserts can be batched.
+-- `next_val` is the first ID of the next block.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `movies`.`review_seq` (
+  `next_val` BIGINT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`review_seq` (`next_val`)
+SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movies`.`review`
+WHERE NOT EXISTS (SELECT * FROM `movies`.`review_seq`);
+
+-- -----------------------------------------------------
+-- Table `movies`.`person_stats`
+-- Number of movies every person directed and acted in, maintained by the application on movie writes.
+-- POST /api/persons/summary/rebuild recounts it from `movie` and `actor_ids`.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `movies`.`person_stats` (
+  `person_id` INT NOT NULL,
+  `as_director` INT NOT NULL DEFAULT 0,
+  `as_actor` INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`person_id`),
+  CONSTRAINT `fk_person_stats_person`
+    FOREIGN KEY (`person_id`)
+    REFERENCES `movies`.`person` (`id`)
+    ON DELETE CASCADE
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+INSERT INTO `movies`.`person_stats` (`person_id`, `as_director`, `as_actor`)
+SELECT p.`id`,
+       (SELECT COUNT(*) FROM `movies`.`movie` m WHERE m.`director_id` = p.`id`),
+       (SELECT COUNT(DISTINCT a.`movie_id`) FROM `movies`.`actor_ids` a WHERE a.`actor_id` = p.`id`)
+FROM `movies`.`person` p
+WHERE NOT EXISTS (SELECT * FROM `movies`.`person_stats`);
+
 SET SQL_MODE=@OLD_SQL_MODE;
 SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS;
 SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS;
\ No newline at end of file
@@ -2,6 +2,7 @@ USE `movies`;
 
 -- Delete all data from tables
 DELETE FROM `review`;
+DELETE FROM `person_stats`;
 DELETE FROM `actor_ids`;
 DELETE FROM `movie`;
 DELETE FROM `person`;
@@ -135,3 +136,13 @@ VALUES
     (13, 23),
     (13, 5);
 
+
+INSERT INTO `person_stats` (person_id, as_director, as_actor)
+SELECT p.id,
+       (SELECT COUNT(*) FROM `movie` m WHERE m.director_id = p.id),
+       (SELECT COUNT(DISTINCT a.movie_id) FROM `actor_ids` a WHERE a.actor_id = p.id)
+FROM `person` p;
+
+UPDATE `person_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `person`);
+UPDATE `movie_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `movie`);
+UPDATE `review_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 1 FROM `review`);
@@ -0,0 +1,94 @@
+package moviesApi;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import moviesApi.datasource.ReadWriteRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opens the minimum number of idle connections of the primary and replica pools while the application starts,
+ * so that the first requests do not pay the connection handshakes.
+ * The connections are all checked out at once, which forces the pool to open each of them, and are then returned to the pool.
+ * <p>
+ * The warm-up is best-effort: it runs on its own thread and the startup waits for it at most
+ * {@code movies.datasource.warm-up.timeout}, after which it goes on in the background.
+ * A database that cannot be reached is only logged, the pool keeps retrying on its own.
+ */
+@Component
+public class ConnectionPoolWarmUp {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolWarmUp.class);
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final boolean enabled;
+    private final Duration timeout;
+
+    @Autowired
+    public ConnectionPoolWarmUp(ReadWriteRoutingDataSource routingDataSource,
+                                @Value("${movies.datasource.warm-up.enabled:true}") boolean enabled,
+                                @Value("${movies.datasource.warm-up.timeout:2s}") Duration timeout) {
+        this.routingDataSource = routingDataSource;
+        this.enabled = enabled;
+        this.timeout = timeout;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "connection-pool-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?> warmUp = executor.submit(() -> routingDataSource.getPools().forEach(this::warmUp));
+            warmUp.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Connection pools are not warmed up after {}, continuing in the background", timeout);
+        } catch (ExecutionException e) {
+            log.warn("Could not warm up the connection pools: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void warmUp(HikariDataSource dataSource) {
+        int size = Math.max(dataSource.getMinimumIdle(), 1);
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+            log.info("Warmed up {} connections of pool {}", connections.size(), dataSource.getPoolName());
+        } catch (SQLException e) {
+            log.warn("Could not warm up pool {}: {}", dataSource.getPoolName(), e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("Could not return a connection to pool {}: {}", dataSource.getPoolName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
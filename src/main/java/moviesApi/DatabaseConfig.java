@@ -1,27 +1,71 @@
 package moviesApi;
-import javax.sql.DataSource;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import moviesApi.datasource.ReadWriteRoutingDataSource;
+import moviesApi.datasource.ReplicaProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
 public class DatabaseConfig {
 
     @Autowired
     private DataSourceProperties dataSourceProperties;
 
+    /**
+     * A Hikari connection pool, so that repository calls reuse open connections instead of connecting for every call.
+     * The pool size, validation, leak detection and driver properties are bound from {@code spring.datasource.hikari}.
+     * <p>
+     * Active, idle and pending connections and the time spent waiting for a connection are published
+     * as the {@code hikaricp.*} metrics of the pool.
+     */
     @Bean
-    @ConfigurationProperties(prefix = "spring.datasource")
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
         dataSource.setDriverClassName(dataSourceProperties.getDriverClassName());
-        dataSource.setUrl(dataSourceProperties.getUrl());
+        dataSource.setJdbcUrl(dataSourceProperties.getUrl());
         dataSource.setUsername(dataSourceProperties.getUsername());
         dataSource.setPassword(dataSourceProperties.getPassword());
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
         return dataSource;
     }
-}
\ No newline at end of file
+
+    /**
+     * Routes read-only transactions to the replicas of {@code movies.datasource.replicas} and everything else to the primary,
+     * see {@link ReadWriteRoutingDataSource}. Every replica gets a pool with the settings of the primary pool.
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, ReplicaProperties replicaProperties) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReplicaProperties.Replica replica : replicaProperties.getReplicas()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            primaryDataSource.copyStateTo(dataSource);
+            dataSource.setPoolName(primaryDataSource.getPoolName() + "-replica-" + replicas.size());
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            replicas.add(dataSource);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
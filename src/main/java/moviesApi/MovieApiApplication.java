@@ -1,11 +1,12 @@
 package moviesApi;
 
+import moviesApi.repository.FilterableJpaRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
-@EnableJpaRepositories(basePackages = "moviesApi.repository")
+@EnableJpaRepositories(basePackages = "moviesApi.repository", repositoryBaseClass = FilterableJpaRepository.class)
 public class MovieApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(MovieApiApplication.class, args);
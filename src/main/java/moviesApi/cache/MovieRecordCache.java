@@ -0,0 +1,157 @@
+package moviesApi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import moviesApi.domain.Person;
+import moviesApi.dto.MovieRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A bounded in-process cache of assembled {@link MovieRecord}s by movie ID.
+ * Besides the records it keeps the IDs of the cached movies that embed each person as director or actor,
+ * so that a written person evicts exactly the records it appears in.
+ * The cached records are shared between callers and must not be modified.
+ * <p>
+ * A record and its person links are added and removed atomically for the movie ID,
+ * as part of the load, the invalidation or the eviction of the record.
+ * Hit, miss and eviction counts are published as the {@code cache.*} metrics of the {@code movieRecords} cache.
+ */
+@Component
+public class MovieRecordCache {
+    public static final String NAME = "movieRecords";
+
+    private final Cache<Long, MovieRecord> cache;
+    private final Map<Long, Set<Long>> moviesByPerson = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MovieRecordCache(@Value("${movies.cache.movie-records.maximum-size:10000}") long maximumSize,
+                            @Value("${movies.cache.movie-records.expire-after-write:10m}") Duration expireAfterWrite,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .executor(Runnable::run)
+                .evictionListener((Long movieId, MovieRecord movieRecord, RemovalCause cause) -> {
+                    if (movieId != null && movieRecord != null) {
+                        unlink(movieId, movieRecord);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    /**
+     * Returns the record of the movie with the given ID, assembling it if it is not cached.
+     *
+     * @param movieId the movie ID
+     * @param loader  assembles the record of a movie
+     * @return the movie record, or an empty optional if the movie does not exist
+     */
+    public Optional<MovieRecord> get(Long movieId, Function<Long, Optional<MovieRecord>> loader) {
+        return Optional.ofNullable(cache.get(movieId, key -> {
+            MovieRecord movieRecord = loader.apply(key).orElse(null);
+            if (movieRecord != null) {
+                link(key, movieRecord);
+            }
+            return movieRecord;
+        }));
+    }
+
+    /**
+     * Returns the record of the movie like {@link #get(Long, Function)}, but does not cache an assembled record,
+     * because the loader may read a replica which has not seen the latest writes.
+     *
+     * @param movieId the movie ID
+     * @param loader  assembles the record of a movie
+     * @return the movie record, or an empty optional if the movie does not exist
+     */
+    public Optional<MovieRecord> getUncached(Long movieId, Function<Long, Optional<MovieRecord>> loader) {
+        return getIfPresent(movieId).or(() -> loader.apply(movieId));
+    }
+
+    /**
+     * @param movieId the movie ID
+     * @return the cached record of the movie, or an empty optional if it is not cached
+     */
+    public Optional<MovieRecord> getIfPresent(Long movieId) {
+        return Optional.ofNullable(cache.getIfPresent(movieId));
+    }
+
+    /**
+     * Evicts the record of a movie.
+     *
+     * @param movieId the movie ID
+     */
+    public void invalidate(Long movieId) {
+        cache.asMap().computeIfPresent(movieId, (key, movieRecord) -> {
+            unlink(key, movieRecord);
+            return null;
+        });
+    }
+
+    /**
+     * Evicts the records of all movies embedding a person.
+     *
+     * @param personId the person ID
+     */
+    public void invalidatePerson(Long personId) {
+        Set<Long> movieIds = moviesByPerson.get(personId);
+        if (movieIds != null) {
+            List.copyOf(movieIds).forEach(this::invalidate);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.asMap().keySet().forEach(this::invalidate);
+    }
+
+    /**
+     * @return the IDs of the cached movies embedding a person
+     */
+    Set<Long> getMovieIds(Long personId) {
+        return Set.copyOf(moviesByPerson.getOrDefault(personId, Set.of()));
+    }
+
+    private void link(Long movieId, MovieRecord movieRecord) {
+        for (Long personId : personIds(movieRecord)) {
+            moviesByPerson.compute(personId, (key, movieIds) -> {
+                Set<Long> linkedMovieIds = movieIds != null ? movieIds : ConcurrentHashMap.newKeySet();
+                linkedMovieIds.add(movieId);
+                return linkedMovieIds;
+            });
+        }
+    }
+
+    private void unlink(Long movieId, MovieRecord movieRecord) {
+        for (Long personId : personIds(movieRecord)) {
+            moviesByPerson.computeIfPresent(personId, (key, movieIds) -> {
+                movieIds.remove(movieId);
+                return movieIds.isEmpty() ? null : movieIds;
+            });
+        }
+    }
+
+    private static Set<Long> personIds(MovieRecord movieRecord) {
+        Set<Long> personIds = new HashSet<>();
+        if (movieRecord.getDirector() != null) {
+            personIds.add(movieRecord.getDirector().getId());
+        }
+        if (movieRecord.getActors() != null) {
+            for (Person actor : movieRecord.getActors()) {
+                personIds.add(actor.getId());
+            }
+        }
+        return personIds;
+    }
+}
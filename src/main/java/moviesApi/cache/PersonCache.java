@@ -0,0 +1,117 @@
+package moviesApi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import moviesApi.domain.Person;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A bounded in-process cache of persons by ID, in front of the person repository.
+ * Persons are cached as detached copies, so the cached persons are shared between callers and must not be modified.
+ * Persons that do not exist are not cached.
+ * <p>
+ * Hit, miss and eviction counts are published as the {@code cache.*} metrics of the {@code persons} cache.
+ */
+@Component
+public class PersonCache {
+    public static final String NAME = "persons";
+
+    private final Cache<Long, Person> cache;
+
+    @Autowired
+    public PersonCache(@Value("${movies.cache.persons.maximum-size:10000}") long maximumSize,
+                       @Value("${movies.cache.persons.expire-after-write:10m}") Duration expireAfterWrite,
+                       MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                // evict on the writing thread instead of the common pool, the maintenance of a small cache is cheap
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    /**
+     * Returns the person with the given ID, loading it if it is not cached.
+     *
+     * @param id     the person ID
+     * @param loader loads a person from the database
+     * @return the person, or an empty optional if it does not exist
+     */
+    public Optional<Person> get(Long id, Function<Long, Optional<Person>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).map(PersonCache::copyOf).orElse(null)));
+    }
+
+    /**
+     * @param id the person ID
+     * @return the cached person, or an empty optional if it is not cached
+     */
+    public Optional<Person> getIfPresent(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Returns the persons with the given IDs, loading the ones that are not cached with a single call of the loader.
+     *
+     * @param ids    the person IDs
+     * @param loader loads persons from the database
+     * @return a map from person ID to person; IDs without a matching person are absent from the map
+     */
+    public Map<Long, Person> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, Person>> loader) {
+        return cache.getAll(ids, missingIds -> {
+            Map<Long, Person> loaded = new HashMap<>();
+            loader.apply(Set.copyOf(missingIds)).forEach((id, person) -> loaded.put(id, copyOf(person)));
+            return loaded;
+        });
+    }
+
+    /**
+     * Returns the persons with the given IDs like {@link #getAll(Collection, Function)}, but does not cache the loaded ones,
+     * because the loader may read a replica which has not seen the latest writes.
+     *
+     * @param ids    the person IDs
+     * @param loader loads persons from the database
+     * @return a map from person ID to person; IDs without a matching person are absent from the map
+     */
+    public Map<Long, Person> getAllUncached(Collection<Long> ids, Function<Set<Long>, Map<Long, Person>> loader) {
+        Map<Long, Person> persons = new HashMap<>(cache.getAllPresent(ids));
+        Set<Long> missingIds = new HashSet<>(ids);
+        missingIds.removeAll(persons.keySet());
+        if (!missingIds.isEmpty()) {
+            persons.putAll(loader.apply(missingIds));
+        }
+        return persons;
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static Person copyOf(Person person) {
+        Person copy = new Person();
+        copy.setId(person.getId());
+        copy.setVersion(person.getVersion());
+        copy.setFirstName(person.getFirstName());
+        copy.setLastName(person.getLastName());
+        copy.setBirthDate(person.getBirthDate());
+        return copy;
+    }
+}
@@ -9,23 +9,30 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
 import moviesApi.domain.Movie;
 import moviesApi.domain.Review;
+import moviesApi.dto.CursorPage;
 import moviesApi.dto.MovieRecord;
 import moviesApi.filter.ReviewFilter;
 import moviesApi.service.MovieService;
 import moviesApi.service.ReviewService;
 import moviesApi.filter.MovieFilter;
+import moviesApi.util.ETags;
+import moviesApi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -33,6 +40,7 @@ import java.util.Optional;
 
 import static moviesApi.util.Constants.*;
 import static moviesApi.util.Utilities.createSort;
+import static moviesApi.util.Utilities.parseRatingGroupLimits;
 
 @RestController
 @RequestMapping("/api/movies")
@@ -40,11 +48,13 @@ import static moviesApi.util.Utilities.createSort;
 public class MovieController {
     private final MovieService movieService;
     private final ReviewService reviewService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public MovieController(MovieService movieService, ReviewService reviewService) {
+    public MovieController(MovieService movieService, ReviewService reviewService, ObjectMapper objectMapper) {
         this.movieService = movieService;
         this.reviewService = reviewService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("")
@@ -62,7 +72,8 @@ public class MovieController {
             @Parameter(name = "actorIds", description = "Filter movies by actors ID", in = ParameterIn.QUERY, schema = @Schema(type = "integer")),
             @Parameter(name = "page", description = "Page number (starting from 0)", in = ParameterIn.QUERY, schema = @Schema(type = "integer", defaultValue = DEFAULT_PAGE)),
             @Parameter(name = "size", description = "Page size", in = ParameterIn.QUERY, schema = @Schema(type = "integer", defaultValue = DEFAULT_PAGE_SIZE)),
-            @Parameter(name = "sort", description = "Sort movies by property and order (allowed properties: id, releaseYear, genre, directorId; allowed order types: asc, desc)", in = ParameterIn.QUERY, schema = @Schema(type = "string", defaultValue = DEFAULT_SORT))
+            @Parameter(name = "sort", description = "Sort movies by property and order (allowed properties: id, releaseYear, genre, directorId; allowed order types: asc, desc)", in = ParameterIn.QUERY, schema = @Schema(type = "string", defaultValue = DEFAULT_SORT)),
+            @Parameter(name = "cursor", description = "Cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page (the page number is ignored when set)", in = ParameterIn.QUERY, schema = @Schema(type = "string"))
     })
     public ResponseEntity<?> getAllMovies(
             @RequestParam(name = "title", required = false) String title,
@@ -74,7 +85,8 @@ public class MovieController {
             @RequestParam(name = "actorIds", required = false) Long[] actorIds,
             @RequestParam(name = "page", defaultValue = DEFAULT_PAGE) int page,
             @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE) int size,
-            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT) String[] sortParams
+            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT) String[] sortParams,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         try {
             MovieFilter movieFilter = MovieFilter.builder()
@@ -89,14 +101,24 @@ public class MovieController {
 
             List<Sort.Order> orders = createSort(sortParams, ALLOWED_MOVIE_SORT_PROPERTIES);
 
-            Pageable pageable = PageRequest.of(page, size, Sort.by(orders));
+            Sort sort = Sort.by(orders);
+            Pageable pageable = PageRequest.of(page, size, sort);
+            PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor, sort, Movie.class);
 
-            List<MovieRecord> movies = movieService.filterMovies(movieFilter, pageable);
+            // the tag of a page is computed from the movies on it, so the page is read before the conditional request is checked
+            CursorPage<MovieRecord> movies = movieService.filterMovies(movieFilter, pageable, pageCursor);
 
-            if (movies.isEmpty()) {
+            if (movies.getContent().isEmpty()) {
                 return ResponseEntity.noContent().build();
             } else {
-                return ResponseEntity.ok(movies);
+                HttpHeaders headers = new HttpHeaders();
+                if (movies.getNextCursor() != null) {
+                    headers.add(NEXT_CURSOR_HEADER, movies.getNextCursor());
+                }
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .eTag(ETags.ofList(movies.getContent(), MovieRecord::getId, ETags::of))
+                        .body(movies.getContent());
             }
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -118,19 +140,44 @@ public class MovieController {
         }
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Create many movies")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The outcome of every movie, in the order of the request"),
+            @ApiResponse(responseCode = "400", description = "No movies or more than " + MAX_BULK_SIZE + " movies")
+    })
+    public ResponseEntity<?> createMovies(@RequestBody List<Movie> movies) {
+        try {
+            return ResponseEntity.ok(movieService.saveAll(movies));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Retrieve a movie by ID", responses = {
             @ApiResponse(responseCode = "200", description = "Found the movie", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = Movie.class))
             }),
+            @ApiResponse(responseCode = "304", description = "The movie matches the If-None-Match entity tag"),
             @ApiResponse(responseCode = "404", description = "Movie not found"),
             @ApiResponse(responseCode = "400", description = "Incorrect Request")
     })
-    public ResponseEntity<?> getMovieById(@PathVariable Long id) {
+    public ResponseEntity<?> getMovieById(@PathVariable Long id, WebRequest webRequest) {
         try {
+            // a conditional request is checked against the tag of the movie before the record is assembled
+            if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                Optional<String> eTag = movieService.findRecordETagById(id);
+                if (eTag.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+                if (webRequest.checkNotModified(eTag.get())) {
+                    return null;
+                }
+            }
             Optional<MovieRecord> movieOptional = movieService.findRecordById(id);
             return movieOptional
-                    .map(ResponseEntity::ok)
+                    .map(movieRecord -> ResponseEntity.ok().eTag(ETags.of(movieRecord)).body(movieRecord))
                     .orElseGet(
                             () -> ResponseEntity.notFound().build()
                     );
@@ -208,6 +255,46 @@ public class MovieController {
         }
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export movies", description = "Streams all movies matching the filters as newline-delimited JSON, ordered by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies are streamed"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter parameters")
+    })
+    @Parameters({
+            @Parameter(name = "title", description = "Filter movies by title", in = ParameterIn.QUERY, schema = @Schema(type = "string")),
+            @Parameter(name = "genre", description = "Filter movies by genre", in = ParameterIn.QUERY, schema = @Schema(type = "string[]")),
+            @Parameter(name = "releaseYear", description = "Filter movies by release year", in = ParameterIn.QUERY, schema = @Schema(type = "integer")),
+            @Parameter(name = "directorId", description = "Filter movies by director ID", in = ParameterIn.QUERY, schema = @Schema(type = "integer")),
+            @Parameter(name = "actorIds", description = "Filter movies by actors ID", in = ParameterIn.QUERY, schema = @Schema(type = "integer"))
+    })
+    public ResponseEntity<?> exportMovies(
+            @RequestParam(name = "title", required = false) String title,
+            @RequestParam(name = "genre", required = false) String[] genres,
+            @RequestParam(name = "releaseYear", required = false) Integer year,
+            @RequestParam(name = "fromYear", required = false) Integer fromYear,
+            @RequestParam(name = "toYear", required = false) Integer toYear,
+            @RequestParam(name = "directorId", required = false) Long directorId,
+            @RequestParam(name = "actorIds", required = false) Long[] actorIds
+    ) {
+        try {
+            MovieFilter movieFilter = MovieFilter.builder()
+                    .withTitle(title)
+                    .withGenre(genres)
+                    .withYear(year)
+                    .withFromYear(fromYear)
+                    .withToYear(toYear)
+                    .withDirectorId(directorId)
+                    .withActorIds(actorIds)
+                    .build();
+
+            StreamingResponseBody body = NdjsonBody.of(objectMapper, consumer -> movieService.export(movieFilter, consumer));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/{movieId}/reviews")
     @Operation(summary = "add review for a movie by ID")
     @ApiResponses(value = {
@@ -222,6 +309,24 @@ public class MovieController {
         }
     }
 
+    @PostMapping("/{movieId}/reviews/bulk")
+    @Operation(summary = "Add many reviews for a movie by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The outcome of every review, in the order of the request"),
+            @ApiResponse(responseCode = "400", description = "Invalid movie ID, no reviews or more than " + MAX_BULK_SIZE + " reviews"),
+            @ApiResponse(responseCode = "404", description = "Movie not found")
+    })
+    public ResponseEntity<?> addReviews(@PathVariable Long movieId, @RequestBody List<Review> reviews) {
+        try {
+            if (movieService.findById(movieId).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(reviewService.saveAll(movieId, reviews));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{movieId}/reviews")
     @Operation(summary = "Get all reviews for a movie by ID")
     @ApiResponse(responseCode = "200", description = "Found reviews for the specified movie",
@@ -242,7 +347,8 @@ public class MovieController {
                     name = "sort",
                     description = "Sort reviews by property and order (allowed properties: id, dateTime; allowed order types: asc, desc)",
                     in = ParameterIn.QUERY, schema = @Schema(type = "string", defaultValue = "dateTime,asc"
-            ))
+            )),
+            @Parameter(name = "cursor", description = "Cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page (the page number is ignored when set)", in = ParameterIn.QUERY, schema = @Schema(type = "string"))
     })
     public ResponseEntity<?> getReviewsByMovieId(
             @PathVariable Long movieId,
@@ -255,7 +361,8 @@ public class MovieController {
             @RequestParam(name = "text", required = false) String text,
             @RequestParam(name = "page", defaultValue = DEFAULT_PAGE) int page,
             @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE) int size,
-            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT) String[] sortParams
+            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT) String[] sortParams,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         try {
             Optional<Movie> movieOptional = movieService.findById(movieId);
@@ -273,12 +380,21 @@ public class MovieController {
                         .withText(text)
                         .build();
 
-                Pageable pageable = PageRequest.of(page, size, Sort.by(orders));
-                List<Review> reviews = reviewService.findAll(reviewFilter, pageable);
-                if (reviews.isEmpty()) {
+                Sort sort = Sort.by(orders);
+                Pageable pageable = PageRequest.of(page, size, sort);
+                PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor, sort, Review.class);
+                CursorPage<Review> reviews = reviewService.findAll(reviewFilter, pageable, pageCursor);
+                if (reviews.getContent().isEmpty()) {
                     return ResponseEntity.noContent().build();
                 }
-                return ResponseEntity.ok(reviews);
+                HttpHeaders headers = new HttpHeaders();
+                if (reviews.getNextCursor() != null) {
+                    headers.add(NEXT_CURSOR_HEADER, reviews.getNextCursor());
+                }
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .eTag(ETags.ofList(reviews.getContent(), Review::getId, ETags::of))
+                        .body(reviews.getContent());
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -310,14 +426,19 @@ public class MovieController {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved the number of movies by mode parameter")
     })
     @GetMapping("/summary")
-    public ResponseEntity<?> getSummary(@RequestParam(name = "mode") String mode) {
+    public ResponseEntity<?> getSummary(
+            @RequestParam(name = "mode") String mode,
+            @Parameter(description = "Rating buckets of the RATING mode as comma-separated ranges, e.g. 1-4.9,5-7.9,8-10")
+            @RequestParam(name = "buckets", required = false) String buckets) {
         try {
             if (mode.equalsIgnoreCase("GENRE")) {
                 return ResponseEntity.ok(movieService.getMovieCountByGenre());
             } else if (mode.equalsIgnoreCase("RELEASE_YEAR")) {
                 return ResponseEntity.ok(movieService.getMovieCountByReleaseYear());
             } else if (mode.equalsIgnoreCase("RATING")) {
-                return ResponseEntity.ok(reviewService.getMovieCountByRating());
+                return ResponseEntity.ok(buckets == null
+                        ? reviewService.getMovieCountByRating()
+                        : reviewService.getMovieCountByRating(parseRatingGroupLimits(buckets)));
             } else if (mode.equalsIgnoreCase("DIRECTOR")) {
                 return ResponseEntity.ok(movieService.getMovieCountByDirectorID());
             } else {
@@ -0,0 +1,58 @@
+package moviesApi.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import moviesApi.datasource.ReadWriteRoutingDataSource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Response bodies of the export endpoints, which write newline-delimited JSON.
+ */
+public final class NdjsonBody {
+    private NdjsonBody() {
+    }
+
+    /**
+     * Creates a response body that writes the exported items as newline-delimited JSON while they are produced.
+     * The body is written by another thread, which reads from the primary if the creating request thread does.
+     *
+     * @param objectMapper the mapper used to serialize the items
+     * @param export       the export, which passes every item to the given consumer
+     * @return the streaming response body
+     */
+    public static StreamingResponseBody of(ObjectMapper objectMapper, Consumer<Consumer<Object>> export) {
+        ObjectWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        boolean primaryRequired = ReadWriteRoutingDataSource.isPrimaryRequired();
+        return outputStream -> {
+            Supplier<Void> write = () -> {
+                export.accept(item -> {
+                    try {
+                        writer.writeValue(outputStream, item);
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return null;
+            };
+            try {
+                if (primaryRequired) {
+                    ReadWriteRoutingDataSource.onPrimary(write);
+                } else {
+                    write.get();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+    }
+}
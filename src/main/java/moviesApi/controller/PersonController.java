@@ -8,18 +8,26 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import moviesApi.domain.Person;
+import moviesApi.dto.CursorPage;
 import moviesApi.dto.PersonRecord;
 import moviesApi.filter.PersonFilter;
 import moviesApi.service.PersonService;
+import moviesApi.util.ETags;
+import moviesApi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -33,10 +41,12 @@ import static moviesApi.util.Utilities.createSort;
 @Tag(name = "Person Controller", description = "APIs for managing persons")
 public class PersonController {
     private final PersonService personService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, ObjectMapper objectMapper) {
         this.personService = personService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("")
@@ -57,7 +67,8 @@ public class PersonController {
                             "(allowed properties: id, firstName, lastName, birthDate; " +
                             "allowed order types: asc, desc)",
                     in = ParameterIn.QUERY, schema = @Schema(type = "string", defaultValue = DEFAULT_SORT
-            ))
+            )),
+            @Parameter(name = "cursor", description = "Cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page (the page number is ignored when set)", in = ParameterIn.QUERY, schema = @Schema(type = "string"))
     })
     public ResponseEntity<?> getAllPersons(
             @RequestParam(name = "firstName", required = false) String firstName,
@@ -67,7 +78,8 @@ public class PersonController {
             @RequestParam(name = "birthDateTo", required = false) LocalDate toBirthDate,
             @RequestParam(name = "page", defaultValue = DEFAULT_PAGE, required = false) int page,
             @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE, required = false) int size,
-            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT, required = false) String[] sortParams
+            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT, required = false) String[] sortParams,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         try {
             PersonFilter personFilter = PersonFilter
@@ -81,9 +93,19 @@ public class PersonController {
 
             List<Sort.Order> orders = createSort(sortParams, ALLOWED_PERSON_SORT_PROPERTIES);
 
-            Pageable pageable = PageRequest.of(page, size, Sort.by(orders));
+            Sort sort = Sort.by(orders);
+            Pageable pageable = PageRequest.of(page, size, sort);
+            PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor, sort, Person.class);
 
-            return ResponseEntity.ok(personService.findAll(personFilter, pageable));
+            CursorPage<Person> persons = personService.findAll(personFilter, pageable, pageCursor);
+            HttpHeaders headers = new HttpHeaders();
+            if (persons.getNextCursor() != null) {
+                headers.add(NEXT_CURSOR_HEADER, persons.getNextCursor());
+            }
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .eTag(ETags.ofList(persons.getContent(), Person::getId, ETags::of))
+                    .body(persons.getContent());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -118,13 +140,61 @@ public class PersonController {
         }
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export persons", description = "Streams all persons matching the filters as newline-delimited JSON, ordered by ID.")
+    @ApiResponse(responseCode = "200", description = "Persons are streamed")
+    @ApiResponse(responseCode = "400", description = "Invalid input parameters")
+    @Parameters({
+            @Parameter(name = "firstName", description = "First Name", in = ParameterIn.QUERY, schema = @Schema(type = "string")),
+            @Parameter(name = "lastName", description = "Last Name", in = ParameterIn.QUERY, schema = @Schema(type = "string")),
+            @Parameter(name = "birthDate", description = "Birth date", in = ParameterIn.QUERY, schema = @Schema(type = "string")),
+            @Parameter(name = "birthDateFrom", description = "Birth Date From", in = ParameterIn.QUERY, schema = @Schema(type = "string", format = "date")),
+            @Parameter(name = "birthDateTo", description = "Birth Date To", in = ParameterIn.QUERY, schema = @Schema(type = "string", format = "date"))
+    })
+    public ResponseEntity<?> exportPersons(
+            @RequestParam(name = "firstName", required = false) String firstName,
+            @RequestParam(name = "lastName", required = false) String lastName,
+            @RequestParam(name = "birthDate", required = false) LocalDate birthDate,
+            @RequestParam(name = "birthDateFrom", required = false) LocalDate fromBirthDate,
+            @RequestParam(name = "birthDateTo", required = false) LocalDate toBirthDate
+    ) {
+        try {
+            PersonFilter personFilter = PersonFilter
+                    .builder()
+                    .withFirstName(firstName)
+                    .withLastName(lastName)
+                    .withBirthDate(birthDate)
+                    .withToBirthDate(toBirthDate)
+                    .withFromBirthDate(fromBirthDate)
+                    .build();
+
+            StreamingResponseBody body = NdjsonBody.of(objectMapper, consumer -> personService.export(personFilter, consumer));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get a person by id", description = "Get a person by their id.")
     @ApiResponse(responseCode = "200", description = "Person retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "The person matches the If-None-Match entity tag")
     @ApiResponse(responseCode = "404", description = "Person not found")
-    public ResponseEntity<Person> getPersonById(@PathVariable Long id) {
+    public ResponseEntity<Person> getPersonById(@PathVariable Long id, WebRequest webRequest) {
+        // a conditional request is checked against the version of the person before the person is loaded
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Long> version = personService.findVersionById(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (webRequest.checkNotModified(ETags.ofVersion(version.get()))) {
+                return null;
+            }
+        }
         Optional<Person> personOptional = personService.findById(id);
-        return personOptional.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return personOptional
+                .map(person -> ResponseEntity.ok().eTag(ETags.of(person)).body(person))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping("")
@@ -140,6 +210,18 @@ public class PersonController {
         }
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Create many persons")
+    @ApiResponse(responseCode = "200", description = "The outcome of every person, in the order of the request")
+    @ApiResponse(responseCode = "400", description = "No persons or more than " + MAX_BULK_SIZE + " persons")
+    public ResponseEntity<?> createPersons(@RequestBody List<Person> persons) {
+        try {
+            return ResponseEntity.ok(personService.saveAll(persons));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing person", description = "Update an existing person with the given information.")
     @ApiResponse(responseCode = "200", description = "Person updated successfully")
@@ -172,14 +254,22 @@ public class PersonController {
                     schema = @Schema(implementation = PersonRecord.class)))
     @ApiResponse(responseCode = "204", description = "No content")
     @Parameters({
+            @Parameter(name = "id", description = "Person ID", in = ParameterIn.QUERY, schema = @Schema(type = "integer")),
             @Parameter(name = "firstName", description = "First Name", in = ParameterIn.QUERY, schema = @Schema(type = "String")),
             @Parameter(name = "lastName", description = "Last Name", in = ParameterIn.QUERY, schema = @Schema(type = "String")),
+            @Parameter(name = "birthDate", description = "Birth Date", in = ParameterIn.QUERY, schema = @Schema(type = "string", format = "date")),
+            @Parameter(name = "birthDateFrom", description = "Birth Date From", in = ParameterIn.QUERY, schema = @Schema(type = "string", format = "date")),
+            @Parameter(name = "birthDateTo", description = "Birth Date To", in = ParameterIn.QUERY, schema = @Schema(type = "string", format = "date")),
             @Parameter(name = "page", description = "Page number (starting from 0)", in = ParameterIn.QUERY, schema = @Schema(type = "integer", defaultValue = DEFAULT_PAGE)),
             @Parameter(name = "size", description = "Page size", in = ParameterIn.QUERY, schema = @Schema(type = "integer", defaultValue = DEFAULT_PAGE_SIZE))
     })
     public ResponseEntity<?> getSummary(
+            @RequestParam(name = "id", required = false) Long id,
             @RequestParam(name = "firstName", required = false) String firstName,
             @RequestParam(name = "lastName", required = false) String lastName,
+            @RequestParam(name = "birthDate", required = false) LocalDate birthDate,
+            @RequestParam(name = "birthDateFrom", required = false) LocalDate fromBirthDate,
+            @RequestParam(name = "birthDateTo", required = false) LocalDate toBirthDate,
             @RequestParam(name = "page", defaultValue = DEFAULT_PAGE, required = false) int page,
             @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE, required = false) int size
     ) {
@@ -187,8 +277,12 @@ public class PersonController {
             Pageable pageable = PageRequest.of(page, size);
             PersonFilter personFilter = PersonFilter
                     .builder()
+                    .withId(id)
                     .withFirstName(firstName)
                     .withLastName(lastName)
+                    .withBirthDate(birthDate)
+                    .withToBirthDate(toBirthDate)
+                    .withFromBirthDate(fromBirthDate)
                     .build();
             List<PersonRecord> personSummary = personService.getSummary(personFilter, pageable);
             if (personSummary == null || personSummary.isEmpty()) {
@@ -199,4 +293,14 @@ public class PersonController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    @PostMapping("/summary/rebuild")
+    @Operation(summary = "Rebuild the person summary", description = "Recounts the movies every person directed and acted in.")
+    @ApiResponse(responseCode = "204", description = "Summary rebuilt, the number of persons is returned in the X-Rebuilt-Count header")
+    public ResponseEntity<?> rebuildSummary() {
+        int rebuiltCount = personService.rebuildStats();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Rebuilt-Count", String.valueOf(rebuiltCount));
+        return ResponseEntity.noContent().headers(headers).build();
+    }
 }
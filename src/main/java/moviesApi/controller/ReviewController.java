@@ -8,17 +8,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
 import moviesApi.domain.Review;
+import moviesApi.dto.CursorPage;
 import moviesApi.filter.ReviewFilter;
 import moviesApi.service.ReviewService;
+import moviesApi.util.ETags;
+import moviesApi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,10 +40,12 @@ import static moviesApi.util.Constants.*;
 @Tag(name = "Review Controller", description = "APIs for managing reviews")
 public class ReviewController {
     private final ReviewService reviewService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ObjectMapper objectMapper) {
         this.reviewService = reviewService;
+        this.objectMapper = objectMapper;
     }
 
     @DeleteMapping("/{id}")
@@ -74,7 +84,8 @@ public class ReviewController {
                     name = "sort",
                     description = "Sort reviews by property and order (allowed properties: id, movieId,rating, dateTime; allowed order types: asc, desc)",
                     in = ParameterIn.QUERY, schema = @Schema(type = "string", defaultValue = DEFAULT_SORT
-            ))
+            )),
+            @Parameter(name = "cursor", description = "Cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page (the page number is ignored when set)", in = ParameterIn.QUERY, schema = @Schema(type = "string"))
     })
     public ResponseEntity<?> getAllReviews(
             @RequestParam(name = "dateTime", required = false) LocalDateTime dateTime,
@@ -87,7 +98,8 @@ public class ReviewController {
             @RequestParam(name = "text", required = false) String text,
             @RequestParam(name = "page", defaultValue = DEFAULT_PAGE, required = false) int page,
             @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE, required = false) int size,
-            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT, required = false) String[] sortParams
+            @RequestParam(name = "sort", defaultValue = DEFAULT_SORT, required = false) String[] sortParams,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         try {
             String[] allowedProperties = {"id", "dateTime", "rating", "movieId"};
@@ -104,14 +116,23 @@ public class ReviewController {
                     .withText(text)
                     .build();
 
-            Pageable pageable = PageRequest.of(page, size, Sort.by(orders));
+            Sort sort = Sort.by(orders);
+            Pageable pageable = PageRequest.of(page, size, sort);
+            PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor, sort, Review.class);
 
-            List<Review> reviews = reviewService.findAll(reviewFilter, pageable);
+            CursorPage<Review> reviews = reviewService.findAll(reviewFilter, pageable, pageCursor);
 
-            if (reviews.isEmpty()) {
+            if (reviews.getContent().isEmpty()) {
                 return ResponseEntity.notFound().build();
             } else {
-                return ResponseEntity.ok(reviews);
+                HttpHeaders headers = new HttpHeaders();
+                if (reviews.getNextCursor() != null) {
+                    headers.add(NEXT_CURSOR_HEADER, reviews.getNextCursor());
+                }
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .eTag(ETags.ofList(reviews.getContent(), Review::getId, ETags::of))
+                        .body(reviews.getContent());
             }
         } catch (IllegalArgumentException | ConstraintViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -157,20 +178,76 @@ public class ReviewController {
         }
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export reviews", description = "Streams all reviews matching the filters as newline-delimited JSON, ordered by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reviews are streamed"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameter value")
+    })
+    @Parameters({
+            @Parameter(name = "movieId", description = "Filter reviews by movie ID", in = ParameterIn.QUERY, schema = @Schema(type = "integer")),
+            @Parameter(name = "rating", description = "Filter reviews by rating", in = ParameterIn.QUERY, schema = @Schema(type = "float")),
+            @Parameter(name = "ratingTo", description = "Filter reviews by rating", in = ParameterIn.QUERY, schema = @Schema(type = "float")),
+            @Parameter(name = "ratingFrom", description = "Filter reviews by rating", in = ParameterIn.QUERY, schema = @Schema(type = "float")),
+            @Parameter(name = "dateTime", description = "Filter reviews by date/time", in = ParameterIn.QUERY, schema = @Schema(type = "Date/time")),
+            @Parameter(name = "fromDateTime", description = "Filter reviews by date/time", in = ParameterIn.QUERY, schema = @Schema(type = "Date/time")),
+            @Parameter(name = "toDateTime", description = "Filter reviews by date/time", in = ParameterIn.QUERY, schema = @Schema(type = "Date/time")),
+            @Parameter(name = "text", description = "Filter reviews by text", in = ParameterIn.QUERY, schema = @Schema(type = "string"))
+    })
+    public ResponseEntity<?> exportReviews(
+            @RequestParam(name = "dateTime", required = false) LocalDateTime dateTime,
+            @RequestParam(name = "movieId", required = false) Long movieId,
+            @RequestParam(name = "rating", required = false) Float rating,
+            @RequestParam(name = "fromDateTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDateTime fromDateTime,
+            @RequestParam(name = "toDateTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDateTime toDateTime,
+            @RequestParam(name = "ratingFrom", required = false) Float ratingFrom,
+            @RequestParam(name = "ratingTo", required = false) Float ratingTo,
+            @RequestParam(name = "text", required = false) String text
+    ) {
+        try {
+            ReviewFilter reviewFilter = ReviewFilter.builder()
+                    .withRating(rating)
+                    .withMovieId(movieId)
+                    .withRatingFrom(ratingFrom)
+                    .withRatingTo(ratingTo)
+                    .withDateTime(dateTime)
+                    .withFromDateTime(fromDateTime)
+                    .withToDateTime(toDateTime)
+                    .withText(text)
+                    .build();
+
+            StreamingResponseBody body = NdjsonBody.of(objectMapper, consumer -> reviewService.export(reviewFilter, consumer));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("{id}")
     @Operation(summary = "View a review by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved the review"),
+            @ApiResponse(responseCode = "304", description = "The review matches the If-None-Match entity tag"),
             @ApiResponse(responseCode = "404", description = "The review you are trying to retrieve doesn't exist"),
             @ApiResponse(responseCode = "400", description = "Invalid parameter value")
     })
-    public ResponseEntity<?> getReviewById(@PathVariable Long id) {
+    public ResponseEntity<?> getReviewById(@PathVariable Long id, WebRequest webRequest) {
         try {
+            // a conditional request is checked against the version of the review before the review is loaded
+            if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                Optional<Long> version = reviewService.findVersionById(id);
+                if (version.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+                if (webRequest.checkNotModified(ETags.ofVersion(version.get()))) {
+                    return null;
+                }
+            }
             Optional<Review> review = reviewService.findById(id);
             if (review.isEmpty()) {
                 return ResponseEntity.notFound().build();
             } else {
-                return ResponseEntity.ok(review.get());
+                return ResponseEntity.ok().eTag(ETags.of(review.get())).body(review.get());
             }
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
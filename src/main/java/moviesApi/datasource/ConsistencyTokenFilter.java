@@ -0,0 +1,111 @@
+package moviesApi.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Set;
+
+import static moviesApi.util.Constants.CONSISTENCY_TOKEN_HEADER;
+
+/**
+ * Lets a client read its own writes while the replicas catch up with the primary.
+ * <p>
+ * Every response to a write request carries a consistency token, the time of the write in epoch milliseconds
+ * signed with {@code movies.datasource.consistency-token-secret}.
+ * A request which sends the token back within {@code movies.datasource.read-your-writes-window} of the write
+ * reads from the primary, as do the write requests themselves. Other requests read from the replicas.
+ * The window has to cover the duration of the write and the replication lag.
+ * A token which cannot be read, is not signed with the secret or lies outside of the window is ignored,
+ * so a client cannot move its reads to the primary for longer than the window.
+ * Without a configured secret a random one is used, which only the issuing instance accepts.
+ * <p>
+ * The route applies to the request thread. Streamed exports pass it on to the thread writing the response body.
+ */
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String SEPARATOR = ".";
+
+    private final long windowMillis;
+    private final SecretKeySpec key;
+
+    @Autowired
+    public ConsistencyTokenFilter(@Value("${movies.datasource.read-your-writes-window:5s}") Duration window,
+                                  @Value("${movies.datasource.consistency-token-secret:}") String secret) {
+        this.windowMillis = window.toMillis();
+        byte[] keyBytes = secret.isEmpty() ? new byte[32] : secret.getBytes(StandardCharsets.UTF_8);
+        if (secret.isEmpty()) {
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            response.setHeader(CONSISTENCY_TOKEN_HEADER, now + SEPARATOR + sign(now));
+        }
+        if (!write && !isRecent(request.getHeader(CONSISTENCY_TOKEN_HEADER), now)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadWriteRoutingDataSource.setPrimaryRequired();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clearPrimaryRequired();
+        }
+    }
+
+    private boolean isRecent(String token, long now) {
+        if (token == null) {
+            return false;
+        }
+        int separator = token.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return false;
+        }
+        long writeTime;
+        try {
+            writeTime = Long.parseLong(token.substring(0, separator).trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        // the write may have been served by an instance whose clock is slightly ahead
+        if (Math.abs(now - writeTime) >= windowMillis) {
+            return false;
+        }
+        byte[] signature = sign(writeTime).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(signature, token.substring(separator + 1).trim().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String sign(long writeTime) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] signature = mac.doFinal(Long.toString(writeTime).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
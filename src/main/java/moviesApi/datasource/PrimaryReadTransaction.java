@@ -0,0 +1,53 @@
+package moviesApi.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs reads whose results outlive the request on the primary, such as the loads of the caches,
+ * so that a lagging replica cannot put a stale entry in a cache until it expires.
+ * <p>
+ * The route of a transaction is decided before it begins. A read outside of a transaction runs in a read-only
+ * transaction of its own, which begins on the primary. A read inside a transaction joins it and never takes a second
+ * connection, so inside a read-only transaction it may read a replica: {@link #readsPrimary()} tells whether its result
+ * may be cached.
+ */
+@Component
+public class PrimaryReadTransaction {
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean replicated;
+
+    @Autowired
+    public PrimaryReadTransaction(PlatformTransactionManager transactionManager, ReadWriteRoutingDataSource routingDataSource) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.replicated = routingDataSource.hasReplicas();
+    }
+
+    /**
+     * @param read the read to run on the primary, or in the current transaction
+     * @return the result of the read
+     */
+    public <T> T execute(Supplier<T> read) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return read.get();
+        }
+        return ReadWriteRoutingDataSource.onPrimary(() -> readOnlyTransaction.execute(status -> read.get()));
+    }
+
+    /**
+     * @return whether {@link #execute(Supplier)} reads from the primary on the current thread, which it does unless it
+     * joins a read-only transaction that may hold a replica connection
+     */
+    public boolean readsPrimary() {
+        return !replicated
+                || ReadWriteRoutingDataSource.isPrimaryRequired()
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,110 @@
+package moviesApi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to the replicas, in turn, and all other connections to the primary.
+ * A thread that requires the primary, because its client has just written, always gets the primary.
+ * <p>
+ * The route is decided when a connection is requested, and a transaction is only known to be read-only once it has begun,
+ * so this data source must be used behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which requests the connection on the first statement.
+ * Without replicas every connection goes to the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Makes the connections of the current thread go to the primary until {@link #clearPrimaryRequired()} is called.
+     */
+    public static void setPrimaryRequired() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryRequired() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    /**
+     * Runs an action with the connections of the current thread going to the primary,
+     * then restores the previous route of the thread.
+     * Only connections requested by the action are routed, a transaction that already holds a connection keeps it.
+     *
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (isPrimaryRequired()) {
+            return action.get();
+        }
+        setPrimaryRequired();
+        try {
+            return action.get();
+        } finally {
+            clearPrimaryRequired();
+        }
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * @return the pools of the primary and of the replicas
+     */
+    public List<HikariDataSource> getPools() {
+        List<HikariDataSource> pools = new ArrayList<>(replicas.size() + 1);
+        pools.add(primary);
+        pools.addAll(replicas);
+        return pools;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty()
+                || isPrimaryRequired()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * Closes the replica pools, the primary pool is closed as a bean of its own.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,53 @@
+package moviesApi.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The read replicas of the primary database, bound from {@code movies.datasource.replicas}.
+ * The replica pools share the settings of the primary pool, only the connection URL and credentials differ.
+ */
+@ConfigurationProperties(prefix = "movies.datasource")
+public class ReplicaProperties {
+    private List<Replica> replicas = new ArrayList<>();
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package moviesApi.domain;
+
+import moviesApi.util.Utilities;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The actor IDs of a movie, held as a single array of distinct IDs in ascending order instead of one boxed Long per actor.
+ * It is the collection that {@link ActorIdsType} loads the {@code actor_ids} rows of a movie into.
+ * <p>
+ * A change replaces the array, so an array returned by {@link #toSortedArray()} is never modified afterwards.
+ * Each single {@link #add} or {@link #remove} copies the array. Loading and bulk changes go through
+ * {@link #addAll}, {@link #retainAll} and {@link #removeAll}, which sort or copy it once.
+ */
+public class ActorIds extends AbstractSet<Long> {
+    private static final long[] NO_IDS = new long[0];
+
+    private long[] ids = NO_IDS;
+
+    public ActorIds() {
+    }
+
+    public ActorIds(Collection<Long> ids) {
+        addAll(ids);
+    }
+
+    /**
+     * Creates the actor IDs from the first IDs of an array, sorting them once.
+     *
+     * @param ids  the IDs, reordered by the call
+     * @param size the number of IDs to take
+     * @return the actor IDs
+     */
+    static ActorIds ofUnsorted(long[] ids, int size) {
+        ActorIds actorIds = new ActorIds();
+        actorIds.ids = Utilities.toSortedDistinctArray(size == ids.length ? ids : Arrays.copyOf(ids, size));
+        return actorIds;
+    }
+
+    /**
+     * Returns the actor IDs without copying them, so that they are looked up and iterated without boxing.
+     * The array is shared between callers, so it must not be modified.
+     *
+     * @return the distinct actor IDs in ascending order
+     */
+    public long[] toSortedArray() {
+        return ids;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] iterated = ids;
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < iterated.length;
+            }
+
+            @Override
+            public Long next() {
+                if (next == iterated.length) {
+                    throw new NoSuchElementException();
+                }
+                return iterated[next++];
+            }
+        };
+    }
+
+    @Override
+    public boolean add(Long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        long[] added = new long[ids.length + 1];
+        System.arraycopy(ids, 0, added, 0, insertAt);
+        added[insertAt] = id;
+        System.arraycopy(ids, insertAt, added, insertAt + 1, ids.length - insertAt);
+        ids = added;
+        return true;
+    }
+
+    /**
+     * Adds all given IDs with a single sort, as Hibernate does with the rows of a loaded movie.
+     */
+    @Override
+    public boolean addAll(Collection<? extends Long> added) {
+        if (added.isEmpty() || added == this) {
+            return false;
+        }
+        long[] merged = Arrays.copyOf(ids, ids.length + added.size());
+        int size = ids.length;
+        for (Long id : added) {
+            merged[size++] = id;
+        }
+        int oldSize = ids.length;
+        ids = Utilities.toSortedDistinctArray(merged);
+        return ids.length != oldSize;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = o instanceof Long id ? Arrays.binarySearch(ids, id) : -1;
+        if (index < 0) {
+            return false;
+        }
+        long[] removed = new long[ids.length - 1];
+        System.arraycopy(ids, 0, removed, 0, index);
+        System.arraycopy(ids, index + 1, removed, index, removed.length - index);
+        ids = removed;
+        return true;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> retained) {
+        return keepOnly(retained, true);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> removed) {
+        return keepOnly(removed, false);
+    }
+
+    private boolean keepOnly(Collection<?> ids, boolean contained) {
+        long[] kept = new long[this.ids.length];
+        int size = 0;
+        for (long id : this.ids) {
+            if (ids.contains(id) == contained) {
+                kept[size++] = id;
+            }
+        }
+        if (size == this.ids.length) {
+            return false;
+        }
+        this.ids = Arrays.copyOf(kept, size);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        ids = NO_IDS;
+    }
+}
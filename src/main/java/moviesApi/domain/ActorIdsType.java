@@ -0,0 +1,128 @@
+package moviesApi.domain;
+
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.collection.spi.PersistentSet;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.CollectionClassification;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.usertype.UserCollectionType;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the {@code actor_ids} rows of a movie to a set, like any element collection, that holds them as {@link ActorIds}.
+ * Hibernate keeps tracking the set for changes and still loads it lazily, in batches.
+ */
+public class ActorIdsType implements UserCollectionType {
+
+    /**
+     * Returns the actor IDs of a movie in ascending order, loading them if they are not loaded yet.
+     *
+     * @param actorIds the actor IDs as set on or loaded into a movie
+     * @return the distinct actor IDs in ascending order, which must not be modified
+     */
+    static long[] toSortedArray(Set<Long> actorIds) {
+        if (actorIds instanceof PersistentActorIds persistent) {
+            return persistent.toSortedArray();
+        }
+        return ((ActorIds) actorIds).toSortedArray();
+    }
+
+    @Override
+    public CollectionClassification getClassification() {
+        return CollectionClassification.SET;
+    }
+
+    @Override
+    public Class<?> getCollectionClass() {
+        return Set.class;
+    }
+
+    @Override
+    public PersistentCollection<?> instantiate(SharedSessionContractImplementor session, CollectionPersister persister) {
+        return new PersistentActorIds(session);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public PersistentCollection<?> wrap(SharedSessionContractImplementor session, Object collection) {
+        return new PersistentActorIds(session, (Set<Long>) collection);
+    }
+
+    @Override
+    public Iterator<?> getElementsIterator(Object collection) {
+        return ((Collection<?>) collection).iterator();
+    }
+
+    @Override
+    public boolean contains(Object collection, Object entity) {
+        return ((Collection<?>) collection).contains(entity);
+    }
+
+    @Override
+    public Object indexOf(Object collection, Object entity) {
+        return null;
+    }
+
+    /**
+     * Copies the actor IDs of a merged movie into the set of the managed one.
+     * Hibernate declares the copy cache as a raw map, which a parameterized one would not override.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object replaceElements(Object original, Object target, CollectionPersister persister, Object owner,
+                                  Map copyCache, SharedSessionContractImplementor session) {
+        Collection<Long> replaced = (Collection<Long>) target;
+        replaced.clear();
+        replaced.addAll((Collection<Long>) original);
+        return replaced;
+    }
+
+    @Override
+    public Object instantiate(int anticipatedSize) {
+        return new ActorIds();
+    }
+
+    /**
+     * The set Hibernate tracks for a movie, with its {@link ActorIds} readable without boxing.
+     */
+    static class PersistentActorIds extends PersistentSet<Long> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        PersistentActorIds(SharedSessionContractImplementor session) {
+            super(session);
+        }
+
+        PersistentActorIds(SharedSessionContractImplementor session, Set<Long> actorIds) {
+            super(session, actorIds);
+        }
+
+        /**
+         * Assembles the cached actor IDs into one array and sorts it once, instead of adding them one by one.
+         */
+        @Override
+        public void initializeFromCache(CollectionPersister persister, Object disassembled, Object owner) {
+            Serializable[] cached = (Serializable[]) disassembled;
+            long[] ids = new long[cached.length];
+            int size = 0;
+            for (Serializable id : cached) {
+                Object actorId = persister.getElementType().assemble(id, getSession(), owner);
+                if (actorId != null) {
+                    ids[size++] = (Long) actorId;
+                }
+            }
+            set = ActorIds.ofUnsorted(ids, size);
+        }
+
+        long[] toSortedArray() {
+            read();
+            return ((ActorIds) set).toSortedArray();
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package moviesApi.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import moviesApi.util.Constants;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CollectionType;
 import org.springframework.context.annotation.Lazy;
-import java.util.List;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 
 @Entity
 public class Movie {
+    private static final long[] NO_ACTOR_IDS = new long[0];
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_seq")
+    @SequenceGenerator(name = "movie_seq", sequenceName = "movie_seq", allocationSize = Constants.ID_ALLOCATION_SIZE)
     private Long id;
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
     @NotNull(message = "Title cannot be blank")
     @Size(max = Constants.MAX_TITLE_LENGTH,message = "Title must be less then 255 characters")
     private String title;
@@ -23,11 +36,18 @@ public class Movie {
     @NotNull(message = "Director id cannot be blank")
     @Positive
     private Long directorId;
+    /**
+     * Loaded lazily, together with the actor IDs of up to {@value Constants#EXPORT_CHUNK_SIZE} other movies of the session,
+     * so that a page or an export chunk of movies loads its actors with one query.
+     * Held as {@link ActorIds}, a sorted array of the distinct IDs.
+     */
     @ElementCollection
     @Lazy
+    @BatchSize(size = Constants.EXPORT_CHUNK_SIZE)
     @CollectionTable(name = "actor_ids")
     @Column(name = "actor_id")
-    private List<Long> actorIds;
+    @CollectionType(type = ActorIdsType.class)
+    private Set<Long> actorIds;
 
 //    @OneToMany(fetch = FetchType.LAZY, mappedBy = "movie")
 //    private Set<Review> reviews = new HashSet();
@@ -40,6 +60,14 @@ public class Movie {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -72,12 +100,39 @@ public class Movie {
         this.directorId = directorId;
     }
 
-    public List<Long> getActorIds() {
-        return actorIds;
+    /**
+     * Returns a read-only view of the distinct actor IDs in ascending order.
+     * They are changed by {@link #setActorIds(Collection)} only.
+     */
+    public Set<Long> getActorIds() {
+        return actorIds == null ? null : Collections.unmodifiableSet(actorIds);
+    }
+
+    /**
+     * Sets the actor IDs, dropping duplicates.
+     * Actor IDs the movie already has are changed in place, so that only the added and removed actors are written.
+     *
+     * @param actorIds the actor IDs, or {@code null} for none
+     */
+    public void setActorIds(Collection<Long> actorIds) {
+        if (actorIds == null || this.actorIds == null) {
+            this.actorIds = actorIds == null ? null : new ActorIds(actorIds);
+            return;
+        }
+        ActorIds replaced = new ActorIds(actorIds);
+        this.actorIds.retainAll(replaced);
+        this.actorIds.addAll(replaced);
     }
 
-    public void setActorIds(List<Long> actorIds) {
-        this.actorIds = actorIds;
+    /**
+     * Returns the distinct actor IDs in ascending order, so that they are looked up and iterated without boxing.
+     * The array is the one the movie holds its actor IDs in, so it must not be modified.
+     *
+     * @return the sorted actor IDs, empty if the movie has no actor IDs
+     */
+    @JsonIgnore
+    public long[] getSortedActorIds() {
+        return actorIds == null ? NO_ACTOR_IDS : ActorIdsType.toSortedArray(actorIds);
     }
 
     @Override
@@ -0,0 +1,43 @@
+package moviesApi.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The number of movies a person directed and acted in, kept up to date by
+ * {@link moviesApi.service.MovieService} in the transaction of every movie write,
+ * so that the person summary does not count the movies of every person it returns.
+ */
+@Entity
+@Table(name = "person_stats")
+public class PersonStats {
+    @Id
+    private Long personId;
+    private int asDirector;
+    private int asActor;
+
+    public Long getPersonId() {
+        return personId;
+    }
+
+    public void setPersonId(Long personId) {
+        this.personId = personId;
+    }
+
+    public int getAsDirector() {
+        return asDirector;
+    }
+
+    public void setAsDirector(int asDirector) {
+        this.asDirector = asDirector;
+    }
+
+    public int getAsActor() {
+        return asActor;
+    }
+
+    public void setAsActor(int asActor) {
+        this.asActor = asActor;
+    }
+}
@@ -1,19 +1,37 @@
 package moviesApi.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.*;
 import moviesApi.util.Constants;
 
 import java.time.LocalDateTime;
 
+/**
+ * A review of a movie.
+ * The reviews of a movie are read by date or by rating, so both are indexed after the movie ID
+ * and a filtered page of the reviews of one movie is an index range scan.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_review_movie_date_time", columnList = "movieId, dateTime"),
+        @Index(name = "idx_review_movie_rating", columnList = "movieId, rating")
+})
 public class Review {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_seq")
+    @SequenceGenerator(name = "review_seq", sequenceName = "review_seq", allocationSize = Constants.ID_ALLOCATION_SIZE)
     private Long id;
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
     @NotNull
     @Min(value = Constants.MIN_REVIEW_RATING, message = "rating must be between " + Constants.MIN_REVIEW_RATING + " and " + Constants.MAX_REVIEW_RATING)
     @Max(value = Constants.MAX_REVIEW_RATING, message = "rating must be between " + Constants.MIN_REVIEW_RATING + " and " + Constants.MAX_REVIEW_RATING)
@@ -33,6 +51,14 @@ public class Review {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getText() {
         return text;
     }
@@ -0,0 +1,42 @@
+package moviesApi.dto;
+
+/**
+ * The outcome of one item of a bulk request, identified by its position in the request.
+ */
+public class BulkItemResult {
+    private final int index;
+    private final Long id;
+    private final String error;
+
+    private BulkItemResult(int index, Long id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BulkItemResult created(int index, Long id) {
+        return new BulkItemResult(index, id, null);
+    }
+
+    public static BulkItemResult failed(int index, String error) {
+        return new BulkItemResult(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the ID of the created entity, or {@code null} if the item failed
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the reason the item failed, or {@code null} if it was created
+     */
+    public String getError() {
+        return error;
+    }
+}
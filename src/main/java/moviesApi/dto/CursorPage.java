@@ -0,0 +1,24 @@
+package moviesApi.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the cursor of the next page, or {@code null} if there are no more entities
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -6,10 +6,13 @@ import java.util.Set;
 
 public class MovieRecord {
     private Long id;
+    private Long version;
     private String title;
     private String genre;
     private Integer releaseYear;
     private Person director;
+    private Double averageRating;
+    private Long reviewCount;
 
 //    private Set<ReviewRecord> reviews = new HashSet();
 
@@ -20,6 +23,7 @@ public class MovieRecord {
 
     public MovieRecord(Movie movie) {
         this.id = movie.getId();
+        this.version = movie.getVersion();
         this.title = movie.getTitle();
         this.genre = movie.getGenre();
         this.releaseYear = movie.getReleaseYear();
@@ -29,6 +33,10 @@ public class MovieRecord {
         this.id = id;
     }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void setTitle(String title) {
         this.title = title;
     }
@@ -45,6 +53,14 @@ public class MovieRecord {
         this.director = director;
     }
 
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public void setReviewCount(Long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
 //    public void setReviews(Set<ReviewRecord> reviews) {
 //        this.reviews = reviews;
 //    }
@@ -57,6 +73,13 @@ public class MovieRecord {
         return id;
     }
 
+    /**
+     * @return the version of the movie, the versions of the embedded persons are not included
+     */
+    public Long getVersion() {
+        return version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -73,6 +96,20 @@ public class MovieRecord {
         return director;
     }
 
+    /**
+     * @return the average rating of the reviews of the movie, or {@code null} if it has no reviews or the ratings are not loaded
+     */
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    /**
+     * @return the number of reviews of the movie, or {@code null} if the ratings are not loaded
+     */
+    public Long getReviewCount() {
+        return reviewCount;
+    }
+
 //    public Set<ReviewRecord> getReviews() {
 //        return reviews;
 //    }
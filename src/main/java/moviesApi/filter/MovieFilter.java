@@ -1,14 +1,16 @@
 package moviesApi.filter;
 
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
 import moviesApi.domain.Movie;
 import moviesApi.util.Constants;
+import org.springframework.data.jpa.domain.Specification;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.stream.Stream;
+import java.util.*;
 
-public class MovieFilter {
+import static moviesApi.util.Utilities.escapeLike;
 
+public class MovieFilter {
     private String title;
     private String[] genres;
     private Integer year;
@@ -131,14 +133,65 @@ public class MovieFilter {
         this.actorIds = builder.actorIds;
     }
 
-    public Stream<Movie> filter(Stream<Movie> input) {
-        return input
-                .filter(movie -> (title == null || movie.getTitle().toLowerCase().contains(title.toLowerCase())))
-                .filter(movie -> (genres == null || Arrays.stream(genres).anyMatch(x -> x.equalsIgnoreCase(movie.getGenre()))))
-                .filter(movie -> (fromYear == null || movie.getReleaseYear() >= fromYear))
-                .filter(movie -> (toYear == null || movie.getReleaseYear() <= toYear))
-                .filter(movie -> (year == null || movie.getReleaseYear().equals(year)))
-                .filter(movie -> (directorId == null || movie.getDirectorId().equals(directorId)))
-                .filter(movie -> (actorIds == null || new HashSet<>(movie.getActorIds()).containsAll(new HashSet<>(Arrays.asList(actorIds)))));
+    /**
+     * Converts the filter criteria into a {@link Specification} so that they are evaluated by the database.
+     * The title is matched as a case-insensitive substring, genres case-insensitively,
+     * and a movie matches the actor IDs only if it contains all of them.
+     *
+     * @return a specification for the movies matching the filter
+     */
+    public Specification<Movie> toSpecification() {
+        return toSpecification(null);
+    }
+
+    /**
+     * Converts the filter criteria into a {@link Specification} like {@link #toSpecification()},
+     * with the title criterion replaced by the IDs of the movies whose title matches,
+     * so that the database reads those movies by primary key instead of scanning all titles.
+     *
+     * @param titleMatches the IDs of the movies whose title contains the title of the filter,
+     *                     or {@code null} to match the title in the database
+     * @return a specification for the movies matching the filter
+     */
+    public Specification<Movie> toSpecification(Collection<Long> titleMatches) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (title != null && titleMatches != null) {
+                if (titleMatches.isEmpty()) {
+                    return criteriaBuilder.disjunction();
+                }
+                predicates.add(root.get("id").in(titleMatches));
+            } else if (title != null) {
+                String pattern = "%" + escapeLike(title.toLowerCase()) + "%";
+                predicates.add(criteriaBuilder.like(
+                        criteriaBuilder.lower(root.get("title")), pattern, Constants.LIKE_ESCAPE_CHAR));
+            }
+            if (genres != null) {
+                if (genres.length == 0) {
+                    return criteriaBuilder.disjunction();
+                }
+                List<String> lowerGenres = Arrays.stream(genres).map(String::toLowerCase).toList();
+                predicates.add(criteriaBuilder.lower(root.get("genre")).in(lowerGenres));
+            }
+            if (fromYear != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("releaseYear"), fromYear));
+            }
+            if (toYear != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("releaseYear"), toYear));
+            }
+            if (year != null) {
+                predicates.add(criteriaBuilder.equal(root.get("releaseYear"), year));
+            }
+            if (directorId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("directorId"), directorId));
+            }
+            if (actorIds != null) {
+                Expression<Set<Long>> movieActorIds = root.get("actorIds");
+                for (Long actorId : new LinkedHashSet<>(Arrays.asList(actorIds))) {
+                    predicates.add(criteriaBuilder.isMember(actorId, movieActorIds));
+                }
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
     }
 }
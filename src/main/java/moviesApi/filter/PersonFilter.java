@@ -1,14 +1,15 @@
 package moviesApi.filter;
 
+import jakarta.persistence.criteria.Predicate;
 import moviesApi.domain.Person;
-import moviesApi.dto.PersonRecord;
 import moviesApi.util.Constants;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PersonFilter {
-
     private Long id;
     private String firstName;
     private String lastName;
@@ -113,19 +114,36 @@ public class PersonFilter {
         this.toBirthDate = builder.toBirthDate;
     }
 
-    public Stream<Person> filter(Stream<Person> input) {
-        return input
-                .filter(person -> (id == null || person.getId().equals(id)))
-                .filter(person -> (firstName == null || person.getFirstName().equalsIgnoreCase(firstName)))
-                .filter(person -> (lastName == null || person.getLastName().equalsIgnoreCase(lastName)))
-                .filter(person -> (birthDate == null || person.getBirthDate().equals(birthDate)));
-    }
-
-    public Stream<PersonRecord> filterRecord(Stream<PersonRecord> input) {
-        return input
-                .filter(person -> (id == null || person.getId().equals(id)))
-                .filter(person -> (firstName == null || person.getFirstName().equalsIgnoreCase(firstName)))
-                .filter(person -> (lastName == null || person.getLastName().equalsIgnoreCase(lastName)));
-//                .filter(person -> (birthDate == null || person.getBirthDate().equals(birthDate)));
+    /**
+     * Converts the filter criteria into a {@link Specification} so that they are evaluated by the database.
+     * Names are compared case-insensitively. A birth date range with both limits is inclusive,
+     * a single limit is exclusive.
+     *
+     * @return a specification for the persons matching the filter
+     */
+    public Specification<Person> toSpecification() {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (id != null) {
+                predicates.add(criteriaBuilder.equal(root.get("id"), id));
+            }
+            if (firstName != null) {
+                predicates.add(criteriaBuilder.equal(criteriaBuilder.lower(root.get("firstName")), firstName.toLowerCase()));
+            }
+            if (lastName != null) {
+                predicates.add(criteriaBuilder.equal(criteriaBuilder.lower(root.get("lastName")), lastName.toLowerCase()));
+            }
+            if (birthDate != null) {
+                predicates.add(criteriaBuilder.equal(root.get("birthDate"), birthDate));
+            }
+            if (fromBirthDate != null && toBirthDate != null) {
+                predicates.add(criteriaBuilder.between(root.get("birthDate"), fromBirthDate, toBirthDate));
+            } else if (fromBirthDate != null) {
+                predicates.add(criteriaBuilder.greaterThan(root.get("birthDate"), fromBirthDate));
+            } else if (toBirthDate != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("birthDate"), toBirthDate));
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
     }
 }
@@ -1,13 +1,17 @@
 package moviesApi.filter;
 
+import jakarta.persistence.criteria.Predicate;
 import moviesApi.domain.Review;
 import moviesApi.util.Constants;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
 
-public class ReviewFilter {
+import static moviesApi.util.Utilities.escapeLike;
 
+public class ReviewFilter {
     private String text;
     private Float rating;
     private Float ratingFrom;
@@ -65,7 +69,6 @@ public class ReviewFilter {
         private LocalDateTime toDateTime;
         private Long movieId;
 
-
         public ReviewFilter.ReviewFilterBuilder withText(String text) {
             if (text != null && text.length() > Constants.MAX_REVIEW_LENGTH) {
                 throw new IllegalArgumentException("Review text must be under " + Constants.MAX_REVIEW_LENGTH + " characters");
@@ -143,13 +146,44 @@ public class ReviewFilter {
         this.ratingFrom = builder.ratingFrom;
     }
 
-    public Stream<Review> filter(Stream<Review> input) {
-        return input
-                .filter(review -> (text == null || review.getText().toLowerCase().contains(text.toLowerCase())))
-                .filter(review -> (movieId == null || review.getMovieId().equals(movieId)))
-                .filter(review -> (rating == null || review.getRating().equals(rating)))
-                .filter(review -> (ratingTo == null || review.getRating() <= ratingTo))
-                .filter(review -> (ratingFrom == null || review.getRating() >= ratingFrom))
-                .filter(review -> (dateTime == null || review.getDateTime().equals(dateTime)));
+    /**
+     * Converts the filter criteria into a {@link Specification} so that they are evaluated by the database.
+     * The text is matched as a case-insensitive substring. A date range with both limits is inclusive,
+     * a single limit is exclusive.
+     *
+     * @return a specification for the reviews matching the filter
+     */
+    public Specification<Review> toSpecification() {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (movieId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("movieId"), movieId));
+            }
+            if (rating != null) {
+                predicates.add(criteriaBuilder.equal(root.get("rating"), rating));
+            }
+            if (ratingFrom != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("rating"), ratingFrom));
+            }
+            if (ratingTo != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("rating"), ratingTo));
+            }
+            if (dateTime != null) {
+                predicates.add(criteriaBuilder.equal(root.get("dateTime"), dateTime));
+            }
+            if (fromDateTime != null && toDateTime != null) {
+                predicates.add(criteriaBuilder.between(root.get("dateTime"), fromDateTime, toDateTime));
+            } else if (fromDateTime != null) {
+                predicates.add(criteriaBuilder.greaterThan(root.get("dateTime"), fromDateTime));
+            } else if (toDateTime != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("dateTime"), toDateTime));
+            }
+            if (text != null) {
+                String pattern = "%" + escapeLike(text.toLowerCase()) + "%";
+                predicates.add(criteriaBuilder.like(
+                        criteriaBuilder.lower(root.get("text")), pattern, Constants.LIKE_ESCAPE_CHAR));
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
     }
 }
@@ -0,0 +1,262 @@
+package moviesApi.index;
+
+import moviesApi.domain.Movie;
+import moviesApi.filter.MovieFilter;
+import moviesApi.repository.MovieRepository;
+import moviesApi.util.InMemoryView;
+import moviesApi.util.PageCursor;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static moviesApi.util.Utilities.toSortedDistinctArray;
+
+/**
+ * An optional in-process index of the movie catalog.
+ * It keeps a compressed bitmap of movie IDs per genre, release year, director and actor,
+ * so that the equality and range criteria of a {@link MovieFilter} are answered by bitmap AND/OR
+ * without reading any movie. Title substrings are looked up in the {@link MovieTitleIndex}.
+ * <p>
+ * The index is an {@link InMemoryView} enabled by the {@code movies.index.enabled} property
+ * and kept up to date by {@link moviesApi.service.MovieService}.
+ * Filters it cannot answer, such as listings not sorted by ID or title filters while the title index is not loaded,
+ * fall back to the database like an unloaded index.
+ */
+@Component
+public class MovieBitmapIndex extends InMemoryView {
+    private final MovieRepository movieRepository;
+    private final MovieTitleIndex titleIndex;
+
+    private final RoaringBitmap allMovies = new RoaringBitmap();
+    private final Map<String, Integer> genreCodes = new HashMap<>();
+    private final List<RoaringBitmap> moviesByGenre = new ArrayList<>();
+    private final NavigableMap<Integer, RoaringBitmap> moviesByYear = new TreeMap<>();
+    private final Map<Long, RoaringBitmap> moviesByDirector = new HashMap<>();
+    private final Map<Long, RoaringBitmap> moviesByActor = new HashMap<>();
+    private final Map<Integer, IndexedMovie> indexedMovies = new HashMap<>();
+
+    @Autowired
+    public MovieBitmapIndex(MovieRepository movieRepository, MovieTitleIndex titleIndex,
+                            @Value("${movies.index.enabled:false}") boolean enabled) {
+        super(enabled);
+        this.movieRepository = movieRepository;
+        this.titleIndex = titleIndex;
+    }
+
+    /**
+     * Reads the actors of all movies first, then the indexed columns of all movies, two scans in total.
+     */
+    @Override
+    protected void load() {
+        clear();
+        Map<Integer, List<Long>> actorIds = new HashMap<>();
+        try (Stream<Object[]> rows = movieRepository.streamActorRows()) {
+            rows.forEach(row -> actorIds
+                    .computeIfAbsent(toMovieId((Long) row[0]), movieId -> new ArrayList<>())
+                    .add((Long) row[1]));
+        }
+        try (Stream<Object[]> rows = movieRepository.streamIndexRows()) {
+            rows.forEach(row -> {
+                int movieId = toMovieId((Long) row[0]);
+                add(movieId, new IndexedMovie(genreCode((String) row[1]), (Integer) row[2],
+                        (Long) row[3], toSortedDistinctArray(actorIds.getOrDefault(movieId, List.of()))));
+            });
+        }
+        allMovies.runOptimize();
+    }
+
+    /**
+     * Adds a movie to the index, or replaces the indexed state of an already indexed movie.
+     * The bitmaps are not thread-safe, so writes exclude the readers of the index.
+     *
+     * @param movie the saved movie
+     */
+    public void index(Movie movie) {
+        int movieId = toMovieId(movie.getId());
+        updateExclusively(() -> {
+            remove(movieId);
+            add(movieId, new IndexedMovie(genreCode(movie.getGenre()), movie.getReleaseYear(), movie.getDirectorId(),
+                    movie.getSortedActorIds()));
+        });
+    }
+
+    /**
+     * Removes a movie from the index.
+     *
+     * @param id the ID of the deleted movie
+     */
+    public void remove(Long id) {
+        updateExclusively(() -> remove(toMovieId(id)));
+    }
+
+    /**
+     * Returns the IDs of the movies matching the given filter.
+     *
+     * @param movieFilter the filter criteria
+     * @return the matching movie IDs, or an empty optional if the index cannot answer the filter
+     */
+    public Optional<RoaringBitmap> find(MovieFilter movieFilter) {
+        return read(() -> match(movieFilter));
+    }
+
+    /**
+     * Returns the IDs of a page of the movies matching the given filter.
+     * Only listings sorted by ID can be read from the index.
+     *
+     * @param movieFilter the filter criteria
+     * @param pageable    the page request
+     * @param cursor      the position after which the page starts, or {@code null} to use the page number
+     * @return the movie IDs of the page in the requested order,
+     * or an empty optional if the index cannot answer the request
+     */
+    public Optional<List<Long>> findPage(MovieFilter movieFilter, Pageable pageable, PageCursor cursor) {
+        Sort.Order order = PageCursor.withIdTiebreaker(pageable.getSort()).iterator().next();
+        if (!order.getProperty().equals("id")) {
+            return Optional.empty();
+        }
+        return find(movieFilter).map(matches -> page(matches, pageable, cursor, order.isAscending()));
+    }
+
+    private static List<Long> page(RoaringBitmap matches, Pageable pageable, PageCursor cursor, boolean ascending) {
+        long cardinality = matches.getLongCardinality();
+        long size = pageable.isPaged() ? pageable.getPageSize() : cardinality;
+        List<Long> ids = new ArrayList<>();
+        if (ascending) {
+            long first = cursor != null ? matches.rankLong(toMovieId(cursor.getId())) : pageable.isPaged() ? pageable.getOffset() : 0;
+            for (long i = first; i < cardinality && i < first + size; i++) {
+                ids.add((long) matches.select((int) i));
+            }
+        } else {
+            long first = cursor != null
+                    ? (cursor.getId() > 0 ? matches.rankLong(toMovieId(cursor.getId() - 1)) : 0) - 1
+                    : cardinality - 1 - (pageable.isPaged() ? pageable.getOffset() : 0);
+            for (long i = first; i >= 0 && i > first - size; i--) {
+                ids.add((long) matches.select((int) i));
+            }
+        }
+        return ids;
+    }
+
+    private RoaringBitmap match(MovieFilter movieFilter) {
+        List<RoaringBitmap> criteria = new ArrayList<>();
+        if (movieFilter.getGenres() != null) {
+            criteria.add(FastAggregation.or(Arrays.stream(movieFilter.getGenres())
+                    .map(genre -> genreCodes.get(genre.toLowerCase()))
+                    .filter(Objects::nonNull)
+                    .map(moviesByGenre::get)
+                    .iterator()));
+        }
+        if (movieFilter.getYear() != null) {
+            criteria.add(moviesByYear.getOrDefault(movieFilter.getYear(), new RoaringBitmap()));
+        }
+        if (movieFilter.getFromYear() != null || movieFilter.getToYear() != null) {
+            int fromYear = movieFilter.getFromYear() != null ? movieFilter.getFromYear() : Integer.MIN_VALUE;
+            int toYear = movieFilter.getToYear() != null ? movieFilter.getToYear() : Integer.MAX_VALUE;
+            criteria.add(fromYear > toYear
+                    ? new RoaringBitmap()
+                    : FastAggregation.or(moviesByYear.subMap(fromYear, true, toYear, true).values().iterator()));
+        }
+        if (movieFilter.getDirectorId() != null) {
+            criteria.add(moviesByDirector.getOrDefault(movieFilter.getDirectorId(), new RoaringBitmap()));
+        }
+        if (movieFilter.getActorIds() != null) {
+            for (Long actorId : movieFilter.getActorIds()) {
+                criteria.add(moviesByActor.getOrDefault(actorId, new RoaringBitmap()));
+            }
+        }
+        RoaringBitmap matches;
+        if (criteria.isEmpty()) {
+            matches = allMovies;
+        } else if (criteria.size() == 1) {
+            matches = criteria.get(0);
+        } else {
+            criteria.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+            matches = FastAggregation.and(criteria.iterator());
+        }
+        if (movieFilter.getTitle() == null) {
+            return matches.clone();
+        }
+        // null when the title index is not loaded, so the filter is not answered
+        return titleIndex.find(movieFilter.getTitle(), matches).orElse(null);
+    }
+
+    private void add(int movieId, IndexedMovie movie) {
+        indexedMovies.put(movieId, movie);
+        allMovies.add(movieId);
+        moviesByGenre.get(movie.genreCode).add(movieId);
+        moviesByYear.computeIfAbsent(movie.releaseYear, year -> new RoaringBitmap()).add(movieId);
+        moviesByDirector.computeIfAbsent(movie.directorId, directorId -> new RoaringBitmap()).add(movieId);
+        for (long actorId : movie.actorIds) {
+            moviesByActor.computeIfAbsent(actorId, id -> new RoaringBitmap()).add(movieId);
+        }
+    }
+
+    private void remove(int movieId) {
+        IndexedMovie movie = indexedMovies.remove(movieId);
+        if (movie == null) {
+            return;
+        }
+        allMovies.remove(movieId);
+        moviesByGenre.get(movie.genreCode).remove(movieId);
+        removeFrom(moviesByYear, movie.releaseYear, movieId);
+        removeFrom(moviesByDirector, movie.directorId, movieId);
+        for (long actorId : movie.actorIds) {
+            removeFrom(moviesByActor, actorId, movieId);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int movieId) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(movieId);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private void clear() {
+        allMovies.clear();
+        genreCodes.clear();
+        moviesByGenre.clear();
+        moviesByYear.clear();
+        moviesByDirector.clear();
+        moviesByActor.clear();
+        indexedMovies.clear();
+    }
+
+    private int genreCode(String genre) {
+        return genreCodes.computeIfAbsent(genre.toLowerCase(), key -> {
+            moviesByGenre.add(new RoaringBitmap());
+            return moviesByGenre.size() - 1;
+        });
+    }
+
+    private static int toMovieId(long id) {
+        return Math.toIntExact(id);
+    }
+
+    /**
+     * The indexed state of a movie, used to remove it from the bitmaps it was added to.
+     */
+    private static class IndexedMovie {
+        private final int genreCode;
+        private final int releaseYear;
+        private final long directorId;
+        private final long[] actorIds;
+
+        private IndexedMovie(int genreCode, int releaseYear, long directorId, long[] actorIds) {
+            this.genreCode = genreCode;
+            this.releaseYear = releaseYear;
+            this.directorId = directorId;
+            this.actorIds = actorIds;
+        }
+    }
+}
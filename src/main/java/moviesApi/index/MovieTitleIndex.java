@@ -0,0 +1,108 @@
+package moviesApi.index;
+
+import moviesApi.domain.Movie;
+import moviesApi.repository.MovieRepository;
+import moviesApi.util.InMemoryView;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The movie titles held in a {@link TitleTrigramIndex}, an {@link InMemoryView} maintained by {@link moviesApi.service.MovieService}
+ * and enabled by the {@code movies.index.title.enabled} property.
+ * <p>
+ * A title filter is answered with the IDs of the matching movies, which the database then reads by primary key,
+ * instead of a {@code LIKE '%text%'} scan of all titles. It is used on its own and by the {@link MovieBitmapIndex}.
+ */
+@Component
+public class MovieTitleIndex extends InMemoryView {
+    private final MovieRepository movieRepository;
+
+    private final RoaringBitmap allMovies = new RoaringBitmap();
+    private final TitleTrigramIndex titles = new TitleTrigramIndex();
+
+    @Autowired
+    public MovieTitleIndex(MovieRepository movieRepository, @Value("${movies.index.title.enabled:true}") boolean enabled) {
+        super(enabled);
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Reads the titles of all movies with a single scan.
+     */
+    @Override
+    protected void load() {
+        allMovies.clear();
+        titles.clear();
+        try (Stream<Object[]> rows = movieRepository.streamTitleRows()) {
+            rows.forEach(row -> add(toMovieId((Long) row[0]), (String) row[1]));
+        }
+        allMovies.runOptimize();
+    }
+
+    /**
+     * Adds the title of a movie, or replaces the title of an already indexed movie.
+     * The bitmaps are not thread-safe, so writes exclude the readers of the index.
+     *
+     * @param movie the saved movie
+     */
+    public void index(Movie movie) {
+        int movieId = toMovieId(movie.getId());
+        updateExclusively(() -> {
+            titles.remove(movieId);
+            add(movieId, movie.getTitle());
+        });
+    }
+
+    /**
+     * Removes the title of a movie.
+     *
+     * @param id the ID of the deleted movie
+     */
+    public void remove(Long id) {
+        int movieId = toMovieId(id);
+        updateExclusively(() -> {
+            titles.remove(movieId);
+            allMovies.remove(movieId);
+        });
+    }
+
+    /**
+     * Returns the IDs of the movies whose title contains the given text, ignoring case.
+     * A text shorter than a trigram has no trigrams to look up and would be compared with every title,
+     * so it is not answered.
+     *
+     * @param text the text to search for
+     * @return the matching movie IDs, or an empty optional if the index cannot answer the search
+     */
+    public Optional<RoaringBitmap> find(String text) {
+        if (!TitleTrigramIndex.hasTrigrams(text)) {
+            return Optional.empty();
+        }
+        return read(() -> titles.find(text, allMovies));
+    }
+
+    /**
+     * Returns the IDs of the given movies whose title contains the given text, ignoring case.
+     *
+     * @param text       the text to search for
+     * @param candidates the movies to search among
+     * @return the matching movie IDs, or an empty optional if the index is not loaded
+     */
+    public Optional<RoaringBitmap> find(String text, RoaringBitmap candidates) {
+        return read(() -> titles.find(text, candidates));
+    }
+
+    private void add(int movieId, String title) {
+        titles.add(movieId, title);
+        allMovies.add(movieId);
+    }
+
+    private static int toMovieId(long id) {
+        return Math.toIntExact(id);
+    }
+}
@@ -0,0 +1,101 @@
+package moviesApi.index;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * An inverted index of the trigrams of movie titles, used for case-insensitive title substring search.
+ * A title contains a substring only if it contains all trigrams of the substring,
+ * so the bitmaps of those trigrams are intersected to get the candidate movies,
+ * and only the candidates are verified against the stored titles.
+ * <p>
+ * The index is not thread-safe, it is guarded by the lock of {@link MovieTitleIndex}.
+ */
+class TitleTrigramIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, RoaringBitmap> moviesByTrigram = new HashMap<>();
+    private final Map<Integer, String> titles = new HashMap<>();
+
+    void add(int movieId, String title) {
+        String lowerTitle = title.toLowerCase();
+        titles.put(movieId, lowerTitle);
+        for (long trigram : trigrams(lowerTitle)) {
+            moviesByTrigram.computeIfAbsent(trigram, key -> new RoaringBitmap()).add(movieId);
+        }
+    }
+
+    void remove(int movieId) {
+        String lowerTitle = titles.remove(movieId);
+        if (lowerTitle == null) {
+            return;
+        }
+        for (long trigram : trigrams(lowerTitle)) {
+            RoaringBitmap bitmap = moviesByTrigram.get(trigram);
+            if (bitmap != null) {
+                bitmap.remove(movieId);
+                if (bitmap.isEmpty()) {
+                    moviesByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        moviesByTrigram.clear();
+        titles.clear();
+    }
+
+    /**
+     * Returns the candidate movies whose title contains the given text, ignoring case.
+     * Texts shorter than a trigram have no trigrams to look up, so all candidates are verified.
+     *
+     * @param text       the text to search for
+     * @param candidates the movies to search among
+     * @return the matching movies
+     */
+    RoaringBitmap find(String text, RoaringBitmap candidates) {
+        String needle = text.toLowerCase();
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        bitmaps.add(candidates);
+        for (long trigram : trigrams(needle)) {
+            RoaringBitmap bitmap = moviesByTrigram.get(trigram);
+            if (bitmap == null) {
+                return new RoaringBitmap();
+            }
+            bitmaps.add(bitmap);
+        }
+        if (needle.isEmpty()) {
+            return candidates.clone();
+        }
+        bitmaps.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap matches = new RoaringBitmap();
+        IntIterator iterator = FastAggregation.and(bitmaps.iterator()).getIntIterator();
+        while (iterator.hasNext()) {
+            int movieId = iterator.next();
+            String title = titles.get(movieId);
+            if (title != null && title.contains(needle)) {
+                matches.add(movieId);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return {@code true} if the text is long enough to be looked up by its trigrams
+     */
+    static boolean hasTrigrams(String text) {
+        return text.length() >= GRAM_LENGTH;
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,63 @@
+package moviesApi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import moviesApi.util.PageCursor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Repository base class registered for all repositories of the application.
+ * Implements the {@link FilterableRepository} methods on top of {@link SimpleJpaRepository}.
+ */
+public class FilterableJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements FilterableRepository<T, ID> {
+    private final EntityManager entityManager;
+
+    public FilterableJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<T> findPage(Specification<T> specification, Pageable pageable) {
+        TypedQuery<T> query = getQuery(specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<T> findPage(Specification<T> specification, Pageable pageable, PageCursor cursor) {
+        Sort sort = PageCursor.withIdTiebreaker(pageable.getSort());
+        if (cursor == null) {
+            return findPage(specification, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+        }
+        return findPage(Specification.where(specification).and(cursor.toSpecification()),
+                PageRequest.of(0, pageable.getPageSize(), sort));
+    }
+
+    @Override
+    public Stream<T> stream(Specification<T> specification, Sort sort, int fetchSize) {
+        return getQuery(specification, sort)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public void clear() {
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package moviesApi.repository;
+
+import moviesApi.util.PageCursor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Base repository for entities that are listed through a filter.
+ * Adds page queries that are executed entirely in the database.
+ *
+ * @param <T>  the entity type
+ * @param <ID> the type of the entity identifier
+ */
+@NoRepositoryBean
+public interface FilterableRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
+    /**
+     * Returns one page of entities matching the given specification.
+     * Unlike {@link JpaSpecificationExecutor#findAll(Specification, Pageable)} no count query is issued,
+     * the page is read with ORDER BY and LIMIT/OFFSET only.
+     *
+     * @param specification the predicates to apply, may be {@code null}
+     * @param pageable      the page to read and its sort order
+     * @return the entities of the requested page
+     */
+    List<T> findPage(Specification<T> specification, Pageable pageable);
+
+    /**
+     * Returns one page of entities matching the given specification, ordered by the page sort order and then by ID.
+     * If a cursor is given, the page starts right after the cursor position and the page number is ignored,
+     * so the database seeks on the sort key instead of skipping {@link Pageable#getOffset()} rows.
+     *
+     * @param specification the predicates to apply, may be {@code null}
+     * @param pageable      the page size and sort order
+     * @param cursor        the position after which the page starts, or {@code null} to use the page number
+     * @return the entities of the requested page
+     */
+    List<T> findPage(Specification<T> specification, Pageable pageable, PageCursor cursor);
+
+    /**
+     * Streams the entities matching the given specification through a forward-only result set.
+     * The rows are fetched from the database {@code fetchSize} at a time and the entities are read-only.
+     * The stream must be consumed inside a transaction and closed afterwards.
+     *
+     * @param specification the predicates to apply, may be {@code null}
+     * @param sort          the sort order
+     * @param fetchSize     the number of rows fetched per round trip
+     * @return the matching entities
+     */
+    Stream<T> stream(Specification<T> specification, Sort sort, int fetchSize);
+
+    /**
+     * Streams the entities matching the given specification like {@link #stream(Specification, Sort, int)}
+     * and passes them to the given action in chunks of the given size.
+     * The entities are detached after every chunk, so that memory use does not grow with the number of entities.
+     * Must be called inside a transaction.
+     *
+     * @param specification the predicates to apply, may be {@code null}
+     * @param sort          the sort order
+     * @param fetchSize     the number of rows fetched per round trip
+     * @param chunkSize     the maximum number of entities in a chunk
+     * @param action        the action to run for every chunk
+     */
+    default void forEachChunk(Specification<T> specification, Sort sort, int fetchSize, int chunkSize,
+                              Consumer<List<T>> action) {
+        try (Stream<T> entities = stream(specification, sort, fetchSize)) {
+            List<T> chunk = new ArrayList<>(chunkSize);
+            Iterator<T> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    action.accept(chunk);
+                    clear();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Detaches all managed entities, so that entities which were already processed can be garbage collected.
+     */
+    void clear();
+}
@@ -1,16 +1,75 @@
 package moviesApi.repository;
 
 import moviesApi.domain.Movie;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long> {
+public interface MovieRepository extends FilterableRepository<Movie, Long> {
     List<Movie> findAll();
     Optional<Movie> findById(Long id);
     Movie save(Movie movie);
     void deleteById(Long id);
+
+    /**
+     * Reads the versions a movie record is tagged with, without loading the movie or its persons.
+     */
+    @Query("SELECT m.version AS version,"
+            + " (SELECT COUNT(d) FROM Person d WHERE d.id = m.directorId) AS directorCount,"
+            + " (SELECT COALESCE(SUM(d.version), 0) FROM Person d WHERE d.id = m.directorId) AS directorVersion,"
+            + " (SELECT COUNT(p) FROM Person p WHERE p.id IN"
+            + " (SELECT a FROM Movie am JOIN am.actorIds a WHERE am.id = m.id)) AS actorCount,"
+            + " (SELECT COALESCE(SUM(p.version), 0) FROM Person p WHERE p.id IN"
+            + " (SELECT a FROM Movie am JOIN am.actorIds a WHERE am.id = m.id)) AS actorVersions"
+            + " FROM Movie m WHERE m.id = :id")
+    Optional<RecordVersions> findRecordVersionsById(@Param("id") Long id);
+
+    /**
+     * Streams the indexed attributes of all movies as {@code [id, genre, releaseYear, directorId]} rows.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.id, m.genre, m.releaseYear, m.directorId FROM Movie m")
+    Stream<Object[]> streamIndexRows();
+
+    /**
+     * Streams the titles of all movies as {@code [id, title]} rows.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.id, m.title FROM Movie m")
+    Stream<Object[]> streamTitleRows();
+
+    /**
+     * Streams the summarized attributes of all movies as {@code [genre, releaseYear, directorId]} rows.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.genre, m.releaseYear, m.directorId FROM Movie m")
+    Stream<Object[]> streamSummaryRows();
+
+    /**
+     * Streams all movie actors as {@code [movieId, actorId]} rows.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.id, a FROM Movie m JOIN m.actorIds a")
+    Stream<Object[]> streamActorRows();
+
+    interface RecordVersions {
+        Long getVersion();
+
+        Number getDirectorCount();
+
+        Number getDirectorVersion();
+
+        Number getActorCount();
+
+        Number getActorVersions();
+    }
 }
\ No newline at end of file
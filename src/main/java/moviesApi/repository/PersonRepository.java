@@ -2,33 +2,22 @@ package moviesApi.repository;
 
 import moviesApi.domain.Person;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
-public interface PersonRepository extends JpaRepository<Person, Long> {
+public interface PersonRepository extends FilterableRepository<Person, Long>, PersonSummaryRepository {
 
     Optional<Person> findById(Long id);
 
+    @Query("SELECT p.version FROM Person p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
     void deleteById(Long id);
 
     List<Person> findAll(Sort sort);
 
-    List<Person> findByBirthDateAfter(LocalDate fromDate,Sort sort);
-    List<Person> findByBirthDateBefore(LocalDate toDate,Sort sort);
-    List<Person> findByBirthDateBetween(LocalDate fromDate, LocalDate toDate,Sort sort);
-
     Person save(Person preson);
-
-    @Query(value = "SELECT p.id, p.first_name, p.last_name, " +
-            "COUNT(DISTINCT d.id) AS as_director, " +
-            "COUNT(DISTINCT a.movie_id) AS as_actor " +
-            "FROM person p " +
-            "LEFT JOIN movie d ON p.id = d.director_id " +
-            "LEFT JOIN actor_ids a ON p.id = a.actor_id " +
-            "GROUP BY p.id", nativeQuery = true)
-    List<Object[]> getUserRecords();
 }
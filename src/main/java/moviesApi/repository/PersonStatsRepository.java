@@ -0,0 +1,55 @@
+package moviesApi.repository;
+
+import moviesApi.domain.PersonStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * Reads and maintains the {@link PersonStats} read model.
+ * All writes are single statements, so concurrent movie writes never read, modify and write back a count.
+ */
+@Repository
+public interface PersonStatsRepository extends JpaRepository<PersonStats, Long> {
+
+    /**
+     * Creates zero counts for new persons.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO person_stats (person_id, as_director, as_actor) " +
+            "SELECT p.id, 0, 0 FROM person p WHERE p.id IN (:personIds)", nativeQuery = true)
+    int createAll(@Param("personIds") Collection<Long> personIds);
+
+    @Modifying
+    @Query("UPDATE PersonStats s SET s.asDirector = s.asDirector + :delta WHERE s.personId IN (:personIds)")
+    int addDirected(@Param("personIds") Collection<Long> personIds, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE PersonStats s SET s.asActor = s.asActor + :delta WHERE s.personId IN (:personIds)")
+    int addActed(@Param("personIds") Collection<Long> personIds, @Param("delta") int delta);
+
+    @Modifying
+    @Query("DELETE FROM PersonStats s WHERE s.personId = :personId")
+    int deleteByPersonId(@Param("personId") Long personId);
+
+    @Modifying
+    @Query("DELETE FROM PersonStats s")
+    int deleteAllStats();
+
+    /**
+     * Counts the movies of every person from the movie and actor tables.
+     *
+     * @return the number of persons
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO person_stats (person_id, as_director, as_actor) " +
+            "SELECT p.id, " +
+            "(SELECT COUNT(*) FROM movie m WHERE m.director_id = p.id), " +
+            "(SELECT COUNT(DISTINCT a.movie_id) FROM actor_ids a WHERE a.actor_id = p.id) " +
+            "FROM person p", nativeQuery = true)
+    int insertAllFromMovies();
+}
@@ -0,0 +1,25 @@
+package moviesApi.repository;
+
+import moviesApi.domain.Person;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Person summaries computed by queries that are built at runtime.
+ */
+public interface PersonSummaryRepository {
+
+    /**
+     * Returns a page of persons matching the specification with the number of movies they directed and acted in,
+     * as {@code [id, firstName, lastName, asDirector, asActor]} rows.
+     * The filter and the page limits are applied by the query, and the counts are read from the
+     * {@link moviesApi.domain.PersonStats} of the persons on the page, {@code null} if a person has none.
+     *
+     * @param specification the persons to summarize
+     * @param pageable      the page size, page number and sort order, ties are ordered by ID
+     * @return the summary rows of the page
+     */
+    List<Object[]> findSummaries(Specification<Person> specification, Pageable pageable);
+}
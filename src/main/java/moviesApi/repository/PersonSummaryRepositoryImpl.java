@@ -0,0 +1,65 @@
+package moviesApi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import moviesApi.domain.Person;
+import moviesApi.domain.PersonStats;
+import moviesApi.util.PageCursor;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+import org.hibernate.query.sqm.tree.from.SqmEntityJoin;
+import org.hibernate.query.sqm.tree.predicate.SqmPredicate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Implements {@link PersonSummaryRepository} with a criteria query, using the Hibernate criteria extensions to join the
+ * {@link PersonStats}, which are not mapped as an association of {@link Person}.
+ */
+public class PersonSummaryRepositoryImpl implements PersonSummaryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The movie counts are read from the {@link PersonStats} of the persons with a single left join on its primary key,
+     * so the cost of the query does not depend on the number of movies.
+     * Persons without statistics are returned with {@code null} counts.
+     */
+    @Override
+    public List<Object[]> findSummaries(Specification<Person> specification, Pageable pageable) {
+        HibernateCriteriaBuilder criteriaBuilder = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        JpaCriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        JpaRoot<Person> person = query.from(Person.class);
+        // the entity join of Hibernate 6.1 has no on() in the criteria API, its join predicate is set on the query tree
+        SqmEntityJoin<PersonStats> stats = (SqmEntityJoin<PersonStats>) person.join(PersonStats.class, SqmJoinType.LEFT);
+        stats.setJoinPredicate((SqmPredicate) criteriaBuilder.equal(stats.get("personId"), person.get("id")));
+
+        query.multiselect(person.get("id"), person.get("firstName"), person.get("lastName"),
+                stats.get("asDirector"), stats.get("asActor"));
+        Predicate predicate = specification.toPredicate(person, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // QueryUtils.toOrders expects the joins of the root to be association joins, the sort properties are plain attributes
+        query.orderBy(PageCursor.withIdTiebreaker(pageable.getSort()).stream()
+                .<Order>map(order -> order.isAscending()
+                        ? criteriaBuilder.asc(person.get(order.getProperty()))
+                        : criteriaBuilder.desc(person.get(order.getProperty())))
+                .toList());
+
+        TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+}
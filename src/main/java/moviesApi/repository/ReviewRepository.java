@@ -1,32 +1,48 @@
 package moviesApi.repository;
 
 import moviesApi.domain.Review;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends FilterableRepository<Review, Long>, ReviewStatisticsRepository {
 
     List<Review> findByMovieId(Long movieId, Sort sort);
 
     Optional<Review> findById(Long id);
 
+    @Query("SELECT r.version FROM Review r WHERE r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
     void deleteById(Long id);
 
     int deleteByMovieId(Long movieId);
 
     List<Review> findAll(Sort sort);
 
-    List<Review> findByDateTimeAfter(LocalDateTime afterDateTime, Sort sort);
-
-    List<Review> findByDateTimeBefore(LocalDateTime fromDateTime, Sort sort);
-
-    List<Review> findByDateTimeBetween(LocalDateTime fromDateTime, LocalDateTime afterDateTime, Sort sort);
-
     Review save(Review review);
+
+    /**
+     * Streams the rating aggregates of all reviewed movies as {@code [movieId, sum, count, min, max]} rows.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.movieId, SUM(r.rating), COUNT(r), MIN(r.rating), MAX(r.rating) FROM Review r GROUP BY r.movieId")
+    Stream<Object[]> streamRatingAggregates();
+
+    /**
+     * Returns the lowest and highest rating of a movie as a single {@code [min, max]} row,
+     * with {@code null} values if the movie has no reviews.
+     */
+    @Query("SELECT MIN(r.rating), MAX(r.rating) FROM Review r WHERE r.movieId = :movieId")
+    List<Object[]> findRatingRange(@Param("movieId") Long movieId);
 }
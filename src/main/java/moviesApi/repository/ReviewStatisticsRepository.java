@@ -0,0 +1,18 @@
+package moviesApi.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Review statistics computed by queries that are built at runtime.
+ */
+public interface ReviewStatisticsRepository {
+
+    /**
+     * Counts the reviewed movies by the bucket their average rating falls in, with a single grouped query.
+     *
+     * @param ratingGroupLimits a list of float arrays where each float array holds the inclusive lower and upper bound of a bucket
+     * @return the number of movies by bucket index, with the movies outside all buckets under {@code -1}
+     */
+    Map<Integer, Long> countMoviesByAverageRating(List<Float[]> ratingGroupLimits);
+}
@@ -0,0 +1,46 @@
+package moviesApi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements {@link ReviewStatisticsRepository} with native queries.
+ */
+public class ReviewStatisticsRepositoryImpl implements ReviewStatisticsRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The bucket of every movie is computed by a {@code CASE} expression over the per-movie averages,
+     * so the database returns one row per bucket and no review or average is transferred.
+     */
+    @Override
+    public Map<Integer, Long> countMoviesByAverageRating(List<Float[]> ratingGroupLimits) {
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int i = 0; i < ratingGroupLimits.size(); i++) {
+            bucket.append(" WHEN average >= :lower").append(i)
+                    .append(" AND average <= :upper").append(i)
+                    .append(" THEN ").append(i);
+        }
+        bucket.append(" ELSE -1 END");
+        Query query = entityManager.createNativeQuery("SELECT bucket, COUNT(*) FROM (" +
+                "SELECT " + bucket + " AS bucket " +
+                "FROM (SELECT AVG(rating) AS average FROM review GROUP BY movie_id) averages" +
+                ") buckets GROUP BY bucket");
+        for (int i = 0; i < ratingGroupLimits.size(); i++) {
+            query.setParameter("lower" + i, ratingGroupLimits.get(i)[0].doubleValue());
+            query.setParameter("upper" + i, ratingGroupLimits.get(i)[1].doubleValue());
+        }
+        Map<Integer, Long> counts = new HashMap<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            counts.put(((Number) columns[0]).intValue(), ((Number) columns[1]).longValue());
+        }
+        return counts;
+    }
+}
@@ -2,28 +2,38 @@ package moviesApi.service;
 
 import moviesApi.domain.Movie;
 
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.CursorPage;
 import moviesApi.dto.MovieRecord;
 import moviesApi.filter.MovieFilter;
+import moviesApi.util.PageCursor;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface MovieService {
 
     Optional<Movie> findById(Long id);
     Optional<MovieRecord> findRecordById(Long id);
 
+    Optional<String> findRecordETagById(Long id);
+
     Movie save(Movie movie);
 
+    List<BulkItemResult> saveAll(List<Movie> movies);
+
     Movie update(Long movieId, Movie movie);
 
     void deleteById(Long id);
 
     long count(MovieFilter movieFilter);
 
-    List<MovieRecord> filterMovies(MovieFilter movieFilter, Pageable pageable);
+    CursorPage<MovieRecord> filterMovies(MovieFilter movieFilter, Pageable pageable, PageCursor cursor);
+
+    void export(MovieFilter movieFilter, Consumer<? super MovieRecord> consumer);
 
     List<Map<String, Long>> getMovieCountByGenre();
 
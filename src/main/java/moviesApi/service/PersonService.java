@@ -1,27 +1,43 @@
 package moviesApi.service;
 
 import moviesApi.domain.Person;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.CursorPage;
 import moviesApi.dto.PersonRecord;
 import moviesApi.filter.PersonFilter;
+import moviesApi.util.PageCursor;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PersonService {
     Person save(Person person);
 
+    List<BulkItemResult> saveAll(List<Person> persons);
+
     void deleteById(Long id);
 
-    List<Person> findAll(PersonFilter personFilter, Pageable pageable);
+    CursorPage<Person> findAll(PersonFilter personFilter, Pageable pageable, PageCursor cursor);
+
+    void export(PersonFilter personFilter, Consumer<? super Person> consumer);
 
     Person update(Long id, Person person);
 
     Optional<Person> findById(Long id);
 
+    Optional<Long> findVersionById(Long id);
+
+    Map<Long, Person> findAllByIds(Collection<Long> ids);
+
     boolean validatePerson(Person person);
 
     long count(PersonFilter personFilter);
 
     List<PersonRecord> getSummary(PersonFilter personFilter,Pageable pageable);
+
+    int rebuildStats();
 }
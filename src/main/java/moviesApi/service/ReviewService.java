@@ -1,23 +1,34 @@
 package moviesApi.service;
 
 import moviesApi.domain.Review;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.CursorPage;
 import moviesApi.filter.ReviewFilter;
+import moviesApi.util.PageCursor;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ReviewService {
 
     Review save(Long movieId, Review review);
+
+    List<BulkItemResult> saveAll(Long movieId, List<Review> reviews);
+
     Optional<Review> update(Long id,Review review);
 
     Optional<Review> findById(Long reviewId);
 
+    Optional<Long> findVersionById(Long reviewId);
+
     void deleteById(Long reviewId);
 
-    List<Review> findAll(ReviewFilter reviewFilter, Pageable pageable);
+    CursorPage<Review> findAll(ReviewFilter reviewFilter, Pageable pageable, PageCursor cursor);
+
+    void export(ReviewFilter reviewFilter, Consumer<? super Review> consumer);
 
     long count(ReviewFilter reviewFilter);
 
@@ -26,4 +37,6 @@ public interface ReviewService {
     int deleteByMovieId(Long movieId);
 
     List<Map<String, Long>> getMovieCountByRating();
+
+    List<Map<String, Long>> getMovieCountByRating(List<Float[]> ratingGroupLimits);
 }
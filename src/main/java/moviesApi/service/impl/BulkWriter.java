@@ -0,0 +1,153 @@
+package moviesApi.service.impl;
+
+import moviesApi.dto.BulkItemResult;
+import moviesApi.repository.FilterableRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static moviesApi.util.Constants.BULK_BATCH_SIZE;
+import static moviesApi.util.Constants.MAX_BULK_SIZE;
+import static moviesApi.util.InMemoryView.applyAfterCommit;
+
+/**
+ * Writes the entities of a bulk request in batches.
+ * Every entity is validated on its own, and the valid entities are inserted {@code movies.bulk.batch-size} at a time,
+ * each batch in its own transaction. Entity IDs are allocated from pooled sequences, so the inserts of a batch
+ * are sent to the database as batched statements instead of one round trip per entity.
+ * A failed batch does not roll back the batches written before it.
+ * Its entities are then inserted one at a time, each in its own transaction, so that only the entities which cannot be
+ * inserted fail. A batch whose transaction cannot be started, e.g. because the database is unavailable, fails as a whole.
+ */
+@Component
+public class BulkWriter {
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public BulkWriter(PlatformTransactionManager transactionManager,
+                      @Value("${movies.bulk.batch-size:" + BULK_BATCH_SIZE + "}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Bulk batch size must be positive");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Validates and inserts the given entities.
+     *
+     * @param entities    the entities to create
+     * @param validator   validates an entity and prepares it for insertion, throwing {@link IllegalArgumentException} if it is invalid;
+     *                    it is called again before an entity of a failed batch is inserted on its own
+     * @param repository  the repository of the entities
+     * @param getId       returns the ID of a saved entity
+     * @param afterSave   runs with the saved entities of every batch in the transaction of the batch, after they are flushed
+     * @param afterCommit runs with the saved entities of every batch after the batch is committed, see {@link moviesApi.util.InMemoryView#applyAfterCommit(Runnable)}
+     * @param <T>         the entity type
+     * @return the outcome of every entity, in the order of the given entities
+     * @throws IllegalArgumentException if no entities or more than {@value moviesApi.util.Constants#MAX_BULK_SIZE} entities are given
+     */
+    public <T> List<BulkItemResult> write(List<T> entities, Consumer<T> validator, FilterableRepository<T, Long> repository,
+                                          Function<T, Long> getId, Consumer<List<T>> afterSave,
+                                          Consumer<List<T>> afterCommit) throws IllegalArgumentException {
+        if (entities == null || entities.isEmpty()) {
+            throw new IllegalArgumentException("Bulk request cannot be empty");
+        }
+        if (entities.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Maximum bulk request size is " + MAX_BULK_SIZE);
+        }
+        BulkItemResult[] results = new BulkItemResult[entities.size()];
+        List<Integer> validEntities = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            try {
+                if (entities.get(i) == null) {
+                    throw new IllegalArgumentException("Item cannot be empty");
+                }
+                validator.accept(entities.get(i));
+                validEntities.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BulkItemResult.failed(i, e.getMessage());
+            }
+        }
+        for (int from = 0; from < validEntities.size(); from += batchSize) {
+            List<Integer> batch = validEntities.subList(from, Math.min(from + batchSize, validEntities.size()));
+            try {
+                insert(batch, entities, repository, getId, afterSave, afterCommit, results);
+            } catch (CannotCreateTransactionException e) {
+                String error = errorOf(e);
+                batch.forEach(i -> results[i] = BulkItemResult.failed(i, error));
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    results[batch.get(0)] = BulkItemResult.failed(batch.get(0), errorOf(e));
+                    continue;
+                }
+                for (Integer i : batch) {
+                    try {
+                        validator.accept(entities.get(i));
+                        insert(List.of(i), entities, repository, getId, afterSave, afterCommit, results);
+                    } catch (RuntimeException itemException) {
+                        results[i] = BulkItemResult.failed(i, errorOf(itemException));
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Validates and inserts the given entities.
+     *
+     * @see #write(List, Consumer, FilterableRepository, Function, Consumer, Consumer)
+     */
+    public <T> List<BulkItemResult> write(List<T> entities, Consumer<T> validator, FilterableRepository<T, Long> repository,
+                                          Function<T, Long> getId, Consumer<List<T>> afterCommit) throws IllegalArgumentException {
+        return write(entities, validator, repository, getId, saved -> {
+        }, afterCommit);
+    }
+
+    /**
+     * Validates and inserts the given entities.
+     *
+     * @see #write(List, Consumer, FilterableRepository, Function, Consumer, Consumer)
+     */
+    public <T> List<BulkItemResult> write(List<T> entities, Consumer<T> validator, FilterableRepository<T, Long> repository,
+                                          Function<T, Long> getId) throws IllegalArgumentException {
+        return write(entities, validator, repository, getId, saved -> {
+        });
+    }
+
+    /**
+     * Inserts the entities at the given positions in one transaction and records them as created.
+     */
+    private <T> void insert(List<Integer> batch, List<T> entities, FilterableRepository<T, Long> repository,
+                            Function<T, Long> getId, Consumer<List<T>> afterSave, Consumer<List<T>> afterCommit,
+                            BulkItemResult[] results) {
+        List<T> savedEntities = transactionTemplate.execute(status -> {
+            List<T> saved = repository.saveAll(batch.stream().map(entities::get).collect(Collectors.toList()));
+            repository.flush();
+            afterSave.accept(saved);
+            repository.clear();
+            applyAfterCommit(() -> afterCommit.accept(saved));
+            return saved;
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            results[batch.get(i)] = BulkItemResult.created(batch.get(i), getId.apply(savedEntities.get(i)));
+        }
+    }
+
+    private static String errorOf(RuntimeException e) {
+        return e instanceof NestedRuntimeException nested ? nested.getMostSpecificCause().getMessage() : e.getMessage();
+    }
+}
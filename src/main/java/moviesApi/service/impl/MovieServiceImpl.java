@@ -2,24 +2,44 @@ package moviesApi.service.impl;
 
 import io.micrometer.common.util.StringUtils;
 
+import moviesApi.cache.MovieRecordCache;
+import moviesApi.datasource.PrimaryReadTransaction;
 import moviesApi.domain.Movie;
 import moviesApi.domain.Person;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.CursorPage;
 import moviesApi.dto.MovieRecord;
+import moviesApi.index.MovieBitmapIndex;
+import moviesApi.index.MovieTitleIndex;
 import moviesApi.repository.MovieRepository;
+import moviesApi.repository.PersonStatsRepository;
 import moviesApi.service.MovieService;
 import moviesApi.service.PersonService;
 import moviesApi.service.ReviewService;
+import moviesApi.summary.MovieRatings;
+import moviesApi.summary.MovieSummaryCounters;
+import moviesApi.summary.RatingAggregate;
 import moviesApi.util.Constants;
+import moviesApi.util.ETags;
 import moviesApi.filter.MovieFilter;
+import moviesApi.util.PageCursor;
 
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+
+import static moviesApi.util.Constants.EXPORT_CHUNK_SIZE;
+import static moviesApi.util.Constants.EXPORT_FETCH_SIZE;
+import static moviesApi.util.InMemoryView.applyAfterCommit;
 
 import static moviesApi.util.Utilities.mapsToListOfSingletonMaps;
 import static moviesApi.util.Utilities.validateId;
@@ -30,37 +50,142 @@ public class MovieServiceImpl implements MovieService {
 
     private final ReviewService reviewService;
     private final PersonService personService;
+    private final MovieBitmapIndex movieIndex;
+    private final MovieTitleIndex titleIndex;
+    private final BulkWriter bulkWriter;
+    private final MovieRecordCache movieRecordCache;
+    private final MovieSummaryCounters summaryCounters;
+    private final MovieRatings movieRatings;
+    private final PersonStatsRepository personStatsRepository;
+    private final PrimaryReadTransaction primaryReadTransaction;
 
     @Autowired
-    public MovieServiceImpl(MovieRepository movieRepository, ReviewService reviewService, PersonService personService) {
+    public MovieServiceImpl(MovieRepository movieRepository, ReviewService reviewService, PersonService personService,
+                            MovieBitmapIndex movieIndex, MovieTitleIndex titleIndex, BulkWriter bulkWriter,
+                            MovieRecordCache movieRecordCache,
+                            MovieSummaryCounters summaryCounters, MovieRatings movieRatings,
+                            PersonStatsRepository personStatsRepository, PrimaryReadTransaction primaryReadTransaction) {
         this.movieRepository = movieRepository;
         this.reviewService = reviewService;
         this.personService = personService;
+        this.movieIndex = movieIndex;
+        this.titleIndex = titleIndex;
+        this.bulkWriter = bulkWriter;
+        this.movieRecordCache = movieRecordCache;
+        this.summaryCounters = summaryCounters;
+        this.movieRatings = movieRatings;
+        this.personStatsRepository = personStatsRepository;
+        this.primaryReadTransaction = primaryReadTransaction;
     }
 
+    /**
+     * Returns the record of a movie from the {@link MovieRecordCache}, assembling it on a cache miss.
+     * The returned record is shared with other callers and must not be modified.
+     * A cache miss loads the movie and its persons in one read-only transaction on the primary,
+     * a cache hit does not open a transaction.
+     * Inside a read-only transaction, which may read a replica, a missing record is assembled in that transaction and not cached.
+     *
+     * @param id the movie ID
+     * @return the movie record, or an empty optional if the movie does not exist
+     */
     @Override
     public Optional<MovieRecord> findRecordById(Long id) {
-        Optional<Movie> movie = findById(id);
-        if (movie.isEmpty()) return Optional.empty();
-        MovieRecord movieRecord = new MovieRecord(movie.get());
-        movieRecord.setDirector(personService.findById(movie.get().getDirectorId()).get());
-        movieRecord.setActors(getPersonsFromIds(movie.get().getActorIds()));
-        return Optional.of(movieRecord);
+        validateId(id);
+        if (!primaryReadTransaction.readsPrimary()) {
+            return movieRecordCache.getUncached(id, this::loadRecord);
+        }
+        return movieRecordCache.get(id, movieId -> primaryReadTransaction.execute(() -> loadRecord(movieId)));
+    }
+
+    /**
+     * Returns the entity tag of the record of a movie without assembling the record.
+     * A cached record is tagged as it is. Otherwise the movie version and the number and versions of its persons
+     * are read with one query, and the rating is taken from the {@link MovieRatings} like {@link #findRecordById(Long)} does.
+     *
+     * @param id the movie ID
+     * @return the entity tag, or an empty optional if the movie does not exist
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> findRecordETagById(Long id) {
+        validateId(id);
+        Optional<MovieRecord> cached = movieRecordCache.getIfPresent(id);
+        if (cached.isPresent()) {
+            return cached.map(ETags::of);
+        }
+        return movieRepository.findRecordVersionsById(id).map(versions -> {
+            Long reviewCount = null;
+            Double averageRating = null;
+            if (movieRatings.isReady()) {
+                Optional<RatingAggregate> rating = movieRatings.get(id);
+                reviewCount = rating.map(RatingAggregate::getCount).orElse(0L);
+                averageRating = rating.map(RatingAggregate::getAverage).orElse(null);
+            }
+            return ETags.ofMovie(versions.getVersion(),
+                    versions.getDirectorCount().longValue() + versions.getActorCount().longValue(),
+                    versions.getDirectorVersion().longValue() + versions.getActorVersions().longValue(),
+                    reviewCount, averageRating);
+        });
+    }
+
+    private Optional<MovieRecord> loadRecord(Long id) {
+        return movieRepository.findById(id).map(movie -> toMovieRecords(List.of(movie)).get(0));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Movie> findById(Long id) {
         validateId(id);
         return movieRepository.findById(id);
     }
 
     @Override
+    @Transactional
     public Movie save(Movie movie) throws IllegalArgumentException {
         validateMovieCreation(movie);
-        return movieRepository.save(movie);
+        movie.setId(null);
+        movie.setVersion(null);
+        Movie savedMovie = movieRepository.save(movie);
+        PersonStatsDelta delta = new PersonStatsDelta();
+        delta.add(savedMovie, 1);
+        delta.apply();
+        String genre = savedMovie.getGenre();
+        Integer releaseYear = savedMovie.getReleaseYear();
+        Long directorId = savedMovie.getDirectorId();
+        applyAfterCommit(() -> {
+            movieIndex.index(savedMovie);
+            titleIndex.index(savedMovie);
+            summaryCounters.increment(genre, releaseYear, directorId);
+        });
+        return savedMovie;
+    }
+
+    /**
+     * Creates many movies at once, see {@link BulkWriter}.
+     *
+     * @param movies the movies to create
+     * @return the outcome of every movie, in the order of the given movies
+     * @throws IllegalArgumentException if no movies or too many movies are given
+     */
+    @Override
+    public List<BulkItemResult> saveAll(List<Movie> movies) throws IllegalArgumentException {
+        return bulkWriter.write(movies, movie -> {
+            validateMovieCreation(movie);
+            movie.setId(null);
+            movie.setVersion(null);
+        }, movieRepository, Movie::getId, saved -> {
+            PersonStatsDelta delta = new PersonStatsDelta();
+            saved.forEach(movie -> delta.add(movie, 1));
+            delta.apply();
+        }, saved -> saved.forEach(movie -> {
+            movieIndex.index(movie);
+            titleIndex.index(movie);
+            summaryCounters.increment(movie.getGenre(), movie.getReleaseYear(), movie.getDirectorId());
+        }));
     }
 
     @Override
+    @Transactional
     public Movie update(Long movieId, Movie updatedMovie) {
         validateId(movieId);
         Optional<Movie> movieOptional = findById(movieId);
@@ -68,6 +193,11 @@ public class MovieServiceImpl implements MovieService {
         Movie movie = movieOptional.get();
 
         validateMovieUpdate(updatedMovie);
+        String oldGenre = movie.getGenre();
+        Integer oldReleaseYear = movie.getReleaseYear();
+        Long oldDirectorId = movie.getDirectorId();
+        PersonStatsDelta delta = new PersonStatsDelta();
+        delta.add(movie, -1);
 
         if (updatedMovie.getTitle() != null) {
             movie.setTitle(updatedMovie.getTitle());
@@ -85,58 +215,206 @@ public class MovieServiceImpl implements MovieService {
             movie.setActorIds(updatedMovie.getActorIds());
         }
 
-        return movieRepository.save(movie);
+        Movie savedMovie = movieRepository.save(movie);
+        delta.add(savedMovie, 1);
+        delta.apply();
+        invalidateRecord(movieId);
+        String genre = savedMovie.getGenre();
+        Integer releaseYear = savedMovie.getReleaseYear();
+        Long directorId = savedMovie.getDirectorId();
+        applyAfterCommit(() -> {
+            movieIndex.index(savedMovie);
+            titleIndex.index(savedMovie);
+            summaryCounters.decrement(oldGenre, oldReleaseYear, oldDirectorId);
+            summaryCounters.increment(genre, releaseYear, directorId);
+        });
+        return savedMovie;
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
         validateId(id);
-        movieRepository.deleteById(id);
+        Optional<Movie> movie = movieRepository.findById(id);
+        if (movie.isPresent()) {
+            PersonStatsDelta delta = new PersonStatsDelta();
+            delta.add(movie.get(), -1);
+            delta.apply();
+            movieRepository.delete(movie.get());
+        } else {
+            movieRepository.deleteById(id);
+        }
+        invalidateRecord(id);
+        applyAfterCommit(() -> {
+            movieIndex.remove(id);
+            titleIndex.remove(id);
+            movieRatings.removeMovie(id);
+            movie.ifPresent(deleted -> summaryCounters.decrement(deleted.getGenre(), deleted.getReleaseYear(), deleted.getDirectorId()));
+        });
+    }
+
+    /**
+     * Collects the changes of the {@link moviesApi.domain.PersonStats} counts caused by movie writes,
+     * and applies them with one statement per distinct change instead of one statement per person.
+     * An update adds the old state of the movie with {@code -1} and the new state with {@code +1},
+     * so the persons whose roles did not change cancel out and are not written.
+     */
+    private class PersonStatsDelta {
+        private final Map<Long, Integer> directed = new HashMap<>();
+        private final Map<Long, Integer> acted = new HashMap<>();
+
+        void add(Movie movie, int delta) {
+            directed.merge(movie.getDirectorId(), delta, Integer::sum);
+            for (long actorId : movie.getSortedActorIds()) {
+                acted.merge(actorId, delta, Integer::sum);
+            }
+        }
+
+        void apply() {
+            byDelta(directed).forEach((delta, personIds) -> personStatsRepository.addDirected(personIds, delta));
+            byDelta(acted).forEach((delta, personIds) -> personStatsRepository.addActed(personIds, delta));
+        }
+
+        private Map<Integer, List<Long>> byDelta(Map<Long, Integer> deltas) {
+            return deltas.entrySet().stream()
+                    .filter(entry -> entry.getValue() != 0)
+                    .collect(Collectors.groupingBy(Map.Entry::getValue,
+                            Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        }
+    }
+
+    /**
+     * Evicts the record of a written movie from the {@link MovieRecordCache},
+     * right away so that the writing transaction reads its own write,
+     * and again after the commit, in case the old state was cached by a concurrent reader in the meantime.
+     *
+     * @param id the ID of the written movie
+     */
+    private void invalidateRecord(Long id) {
+        movieRecordCache.invalidate(id);
+        applyAfterCommit(() -> movieRecordCache.invalidate(id));
     }
 
     /**
      * Counts the number of movies that match the given filter criteria.
+     * The count is the cardinality of the matching bitmap when the {@link MovieBitmapIndex} is loaded,
+     * otherwise it is counted by the database.
      *
      * @param movieFilter the filter criteria to apply to the movies
      * @return the number of movies that match the filter criteria
      */
     @Override
+    @Transactional(readOnly = true)
     public long count(MovieFilter movieFilter) {
-        return movieFilter
-                .filter(movieRepository.findAll().stream())
-                .count();
+        return movieIndex.find(movieFilter)
+                .map(RoaringBitmap::getLongCardinality)
+                .orElseGet(() -> movieRepository.count(toSpecification(movieFilter)));
     }
 
     /**
      * Filters the list of movies based on the provided {@link MovieFilter} object and returns a pageable list of movies
      * according to the provided pagination and sorting criteria.
+     * Listings sorted by ID are read from the {@link MovieBitmapIndex} when it can answer the filter,
+     * otherwise the filter, the sort order and the page limits are all applied by the database query.
      *
      * @param movieFilter The {@link MovieFilter} object used to filter the movies.
      * @param pageable    The {@link Pageable} object used for pagination and sorting.
-     * @return A pageable list of {@link MovieRecord} filtered according to the provided {@link MovieFilter} object and {@link Pageable} object.
+     * @param cursor      The position after which the page starts, or {@code null} to use the page number.
+     * @return A page of {@link MovieRecord} filtered according to the provided {@link MovieFilter} object and {@link Pageable} object,
+     * with the cursor of the next page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<MovieRecord> filterMovies(MovieFilter movieFilter, Pageable pageable, PageCursor cursor) {
+        List<Movie> movies = movieIndex.findPage(movieFilter, pageable, cursor)
+                .map(this::findAllInOrder)
+                .orElseGet(() -> movieRepository.findPage(toSpecification(movieFilter), pageable, cursor));
+        return new CursorPage<>(toMovieRecords(movies), PageCursor.next(movies, pageable, Movie::getId));
+    }
+
+    /**
+     * Passes all movies matching the given filter to the consumer as {@link MovieRecord}s, ordered by ID.
+     * The movies are streamed from the database and converted in chunks, so the directors and actors
+     * of a chunk are loaded with one query and memory use does not depend on the number of movies.
+     *
+     * @param movieFilter the filter criteria to apply
+     * @param consumer    the consumer of the exported movie records
      */
     @Override
-    public List<MovieRecord> filterMovies(MovieFilter movieFilter, Pageable pageable) {
-        Stream<Movie> movieStream = movieRepository.findAll(pageable.getSort()).stream();
-        List<MovieRecord> movieRecords =
-                movieFilter
-                        .filter(movieStream)
-                        .skip(pageable.getOffset())
-                        .limit(pageable.getPageSize())
-                        .map(movie -> {
-                            MovieRecord movieRecord = new MovieRecord(movie);
-                            movieRecord.setDirector(personService.findById(movie.getDirectorId()).get());
-                            movieRecord.setActors(getPersonsFromIds(movie.getActorIds()));
-                            return movieRecord;
-                        })
-                        .collect(Collectors.toList());
-        return movieRecords;
-    }
-
-    private Set<Person> getPersonsFromIds(List<Long> personIds) {
-        return personIds.stream()
-                .map(actor -> personService.findById(actor).get())
-                .collect(Collectors.toSet());
+    @Transactional(readOnly = true)
+    public void export(MovieFilter movieFilter, Consumer<? super MovieRecord> consumer) {
+        movieRepository.forEachChunk(toSpecification(movieFilter), Sort.by("id"), EXPORT_FETCH_SIZE, EXPORT_CHUNK_SIZE,
+                chunk -> toMovieRecords(chunk).forEach(consumer));
+    }
+
+    /**
+     * Converts a movie filter into a specification for the database.
+     * A title is looked up in the {@link MovieTitleIndex}, so the matching movies are read by ID,
+     * unless the index cannot answer it or it matches more than {@link Constants#MAX_TITLE_INDEX_MATCHES} movies,
+     * which a scan of the titles finds sooner than a lookup of every single movie.
+     *
+     * @param movieFilter the filter criteria
+     * @return the specification of the movies matching the filter
+     */
+    private Specification<Movie> toSpecification(MovieFilter movieFilter) {
+        if (movieFilter.getTitle() == null) {
+            return movieFilter.toSpecification();
+        }
+        return titleIndex.find(movieFilter.getTitle())
+                .filter(matches -> matches.getLongCardinality() <= Constants.MAX_TITLE_INDEX_MATCHES)
+                .map(matches -> movieFilter.toSpecification(Arrays.stream(matches.toArray()).mapToObj(id -> (long) id).toList()))
+                .orElseGet(movieFilter::toSpecification);
+    }
+
+    /**
+     * Loads the movies with the given IDs, keeping the order of the IDs.
+     *
+     * @param ids the movie IDs
+     * @return the movies that exist, in the order of the given IDs
+     */
+    private List<Movie> findAllInOrder(List<Long> ids) {
+        Map<Long, Movie> movies = movieRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, movie -> movie));
+        return ids.stream()
+                .map(movies::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Converts movies into {@link MovieRecord}s with their director, actors and rating attached.
+     * The persons of all given movies are loaded with a single query,
+     * so the number of queries does not depend on the number of movies or actors.
+     * The ratings are read from the {@link MovieRatings} and are left out until they are loaded.
+     *
+     * @param movies the movies to convert
+     * @return the movie records, in the order of the given movies
+     */
+    private List<MovieRecord> toMovieRecords(List<Movie> movies) {
+        Set<Long> personIds = new HashSet<>();
+        for (Movie movie : movies) {
+            personIds.add(movie.getDirectorId());
+            for (long actorId : movie.getSortedActorIds()) {
+                personIds.add(actorId);
+            }
+        }
+        Map<Long, Person> persons = personService.findAllByIds(personIds);
+        return movies.stream()
+                .map(movie -> {
+                    MovieRecord movieRecord = new MovieRecord(movie);
+                    movieRecord.setDirector(persons.get(movie.getDirectorId()));
+                    movieRecord.setActors(Arrays.stream(movie.getSortedActorIds())
+                            .mapToObj(persons::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toSet()));
+                    if (movieRatings.isReady()) {
+                        Optional<RatingAggregate> rating = movieRatings.get(movie.getId());
+                        movieRecord.setReviewCount(rating.map(RatingAggregate::getCount).orElse(0L));
+                        movieRecord.setAverageRating(rating.map(RatingAggregate::getAverage).orElse(null));
+                    }
+                    return movieRecord;
+                })
+                .collect(Collectors.toList());
     }
 
     /**
@@ -215,37 +493,49 @@ public class MovieServiceImpl implements MovieService {
     /**
      * Returns a list of maps where each map contains the count of movies for a particular genre.
      * The map key is the genre name and the value is the count of movies with that genre.
+     * The counts are read from the {@link MovieSummaryCounters} when they are loaded, otherwise from all movies.
      *
      * @return a list of maps containing genre counts
      */
     public List<Map<String, Long>> getMovieCountByGenre() {
-        Map<String, Long> movieCount = movieRepository.findAll().stream()
-                .collect(Collectors.groupingBy(Movie::getGenre, Collectors.counting()));
+        Map<String, Long> movieCount = summaryCounters.countByGenre()
+                .orElseGet(() -> movieRepository.findAll().stream()
+                        .collect(Collectors.groupingBy(Movie::getGenre, Collectors.counting())));
         return mapsToListOfSingletonMaps(movieCount);
     }
     /**
      * Returns a list of maps where each map contains the count of movies for a particular release year.
      * The map key is the release year and the value is the count of movies with that release year.
+     * The counts are read from the {@link MovieSummaryCounters} when they are loaded, otherwise from all movies.
      *
      * @return a list of maps containing release year counts
      */
     public List<Map<Integer, Long>> getMovieCountByReleaseYear() {
-        Map<Integer, Long> movieCount = movieRepository.findAll().stream()
-                .collect(Collectors.groupingBy(Movie::getReleaseYear, Collectors.counting()));
+        Map<Integer, Long> movieCount = summaryCounters.countByReleaseYear()
+                .orElseGet(() -> movieRepository.findAll().stream()
+                        .collect(Collectors.groupingBy(Movie::getReleaseYear, Collectors.counting())));
         return mapsToListOfSingletonMaps(movieCount);
     }
     /**
      * Returns a list of maps where each map contains the count of movies for each director.
      * The map key is the director full name and the value is the count of movies with that director.
+     * The counts are read from the {@link MovieSummaryCounters} when they are loaded, otherwise from all movies,
+     * and the directors are loaded with a single lookup.
      *
      * @return a list of maps containing director counts
      */
     public List<Map<String, Long>> getMovieCountByDirectorID() {
-        Map<String, Long> movieCount = movieRepository.findAll().stream()
-                .collect(Collectors.groupingBy(movie -> {
-                    Person person = personService.findById(movie.getDirectorId()).get();
-                    return person.getFirstName() + " " + person.getLastName();
-                }, Collectors.counting()));
+        Map<Long, Long> countByDirectorId = summaryCounters.countByDirector()
+                .orElseGet(() -> movieRepository.findAll().stream()
+                        .collect(Collectors.groupingBy(Movie::getDirectorId, Collectors.counting())));
+        Map<Long, Person> directors = personService.findAllByIds(countByDirectorId.keySet());
+        Map<String, Long> movieCount = new HashMap<>();
+        countByDirectorId.forEach((directorId, count) -> {
+            Person person = directors.get(directorId);
+            if (person != null) {
+                movieCount.merge(person.getFirstName() + " " + person.getLastName(), count, Long::sum);
+            }
+        });
         return mapsToListOfSingletonMaps(movieCount);
     }
 }
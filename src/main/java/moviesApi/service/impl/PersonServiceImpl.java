@@ -1,42 +1,92 @@
 package moviesApi.service.impl;
 
 import io.micrometer.common.util.StringUtils;
+import moviesApi.cache.MovieRecordCache;
+import moviesApi.cache.PersonCache;
+import moviesApi.datasource.PrimaryReadTransaction;
 import moviesApi.domain.Person;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.CursorPage;
 import moviesApi.dto.PersonRecord;
 import moviesApi.filter.PersonFilter;
 import moviesApi.repository.PersonRepository;
+import moviesApi.repository.PersonStatsRepository;
 import moviesApi.service.PersonService;
+import moviesApi.util.Constants;
+import moviesApi.util.PageCursor;
 import moviesApi.util.Utilities;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+
+import static moviesApi.util.Constants.EXPORT_CHUNK_SIZE;
+import static moviesApi.util.Constants.EXPORT_FETCH_SIZE;
+import static moviesApi.util.InMemoryView.applyAfterCommit;
 
 @Service
 public class PersonServiceImpl implements PersonService {
     private final PersonRepository personRepository;
+    private final PersonStatsRepository personStatsRepository;
+    private final BulkWriter bulkWriter;
+    private final PersonCache personCache;
+    private final MovieRecordCache movieRecordCache;
+    private final PrimaryReadTransaction primaryReadTransaction;
 
     @Autowired
-    public PersonServiceImpl(PersonRepository personRepository) {
+    public PersonServiceImpl(PersonRepository personRepository, PersonStatsRepository personStatsRepository,
+                             BulkWriter bulkWriter, PersonCache personCache, MovieRecordCache movieRecordCache,
+                             PrimaryReadTransaction primaryReadTransaction) {
         this.personRepository = personRepository;
+        this.personStatsRepository = personStatsRepository;
+        this.bulkWriter = bulkWriter;
+        this.personCache = personCache;
+        this.movieRecordCache = movieRecordCache;
+        this.primaryReadTransaction = primaryReadTransaction;
     }
 
 
     @Override
+    @Transactional
     public Person save(Person person) {
         validatePerson(person);
-        return personRepository.save(person);
+        person.setId(null);
+        person.setVersion(null);
+        Person savedPerson = personRepository.save(person);
+        personStatsRepository.createAll(List.of(savedPerson.getId()));
+        return savedPerson;
+    }
+
+    /**
+     * Creates many persons at once, see {@link BulkWriter}.
+     *
+     * @param persons the persons to create
+     * @return the outcome of every person, in the order of the given persons
+     * @throws IllegalArgumentException if no persons or too many persons are given
+     */
+    @Override
+    public List<BulkItemResult> saveAll(List<Person> persons) throws IllegalArgumentException {
+        return bulkWriter.write(persons, person -> {
+            validatePerson(person);
+            person.setId(null);
+            person.setVersion(null);
+        }, personRepository, Person::getId, saved -> personStatsRepository.createAll(
+                saved.stream().map(Person::getId).collect(Collectors.toList())), saved -> {
+        });
     }
 
     @Override
+    @Transactional
     public Person update(Long id, Person person) {
-        Optional<Person> existingPersonOptional = findById(id);
+        Utilities.validateId(id);
+        Optional<Person> existingPersonOptional = personRepository.findById(id);
         if (existingPersonOptional.isEmpty()) {
             throw new IllegalArgumentException("Can't find a movie with provided ID");
         } else {
@@ -50,14 +100,67 @@ public class PersonServiceImpl implements PersonService {
             if (person.getBirthDate() != null) {
                 existingPerson.setBirthDate(person.getBirthDate());
             }
-            return save(existingPerson);
+            Person savedPerson = personRepository.save(existingPerson);
+            invalidate(id);
+            return savedPerson;
         }
     }
 
+    /**
+     * Returns the person with the given ID from the {@link PersonCache}, loading it from the primary on a cache miss.
+     * Inside a read-only transaction, which may read a replica, a missing person is read in that transaction and not cached.
+     * The returned person is shared with other callers and must not be modified.
+     *
+     * @param id the person ID
+     * @return the person, or an empty optional if it does not exist
+     */
     @Override
     public Optional<Person> findById(Long id) {
         Utilities.validateId(id);
-        return personRepository.findById(id);
+        if (!primaryReadTransaction.readsPrimary()) {
+            return Optional.ofNullable(personCache.getAllUncached(List.of(id), this::loadAllByIds).get(id));
+        }
+        return personCache.get(id, personId -> primaryReadTransaction.execute(() -> personRepository.findById(personId)));
+    }
+
+    /**
+     * Returns the version of a person without loading the person, from the {@link PersonCache} if it is cached.
+     *
+     * @param id the person ID
+     * @return the version, or an empty optional if the person does not exist
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersionById(Long id) {
+        Utilities.validateId(id);
+        Optional<Person> cached = personCache.getIfPresent(id);
+        return cached.isPresent() ? cached.map(Person::getVersion) : personRepository.findVersionById(id);
+    }
+
+    /**
+     * Loads all persons with the given IDs from the {@link PersonCache},
+     * the persons which are not cached are loaded from the primary using a single query.
+     * Inside a read-only transaction, which may read a replica, they are read in that transaction and not cached.
+     * The returned persons are shared with other callers and must not be modified.
+     *
+     * @param ids the IDs of the persons to load
+     * @return a map from person ID to person; IDs without a matching person are absent from the map
+     */
+    @Override
+    public Map<Long, Person> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        ids.forEach(Utilities::validateId);
+        if (!primaryReadTransaction.readsPrimary()) {
+            return personCache.getAllUncached(ids, this::loadAllByIds);
+        }
+        return personCache.getAll(ids, missingIds -> primaryReadTransaction.execute(() -> loadAllByIds(missingIds)));
+    }
+
+    private Map<Long, Person> loadAllByIds(Set<Long> ids) {
+        return personRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Person::getId, Function.identity()));
     }
 
     /**
@@ -77,6 +180,12 @@ public class PersonServiceImpl implements PersonService {
         if (StringUtils.isBlank(person.getLastName())) {
             throw new IllegalArgumentException("Last name cannot be blank");
         }
+        if (person.getFirstName().length() > Constants.MAX_FIRST_NAME_LENGTH) {
+            throw new IllegalArgumentException("Maximum first name length is " + Constants.MAX_FIRST_NAME_LENGTH);
+        }
+        if (person.getLastName().length() > Constants.MAX_LAST_NAME_LENGTH) {
+            throw new IllegalArgumentException("Maximum last name length is " + Constants.MAX_LAST_NAME_LENGTH);
+        }
         if (person.getBirthDate() == null) {
             throw new IllegalArgumentException("Birth date cannot be blank");
         }
@@ -87,12 +196,31 @@ public class PersonServiceImpl implements PersonService {
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
         Optional<Person> personOptional = findById(id);
         if (personOptional.isEmpty()) {
             throw new IllegalArgumentException("can't find person with the provided ID");
         }
+        personStatsRepository.deleteByPersonId(id);
         personRepository.deleteById(id);
+        invalidate(id);
+    }
+
+    /**
+     * Evicts a written person from the {@link PersonCache}, together with the cached records of the movies it appears in.
+     * The person is evicted right away so that the writing transaction reads its own write,
+     * and again after the commit, in case the old state was cached by a concurrent reader in the meantime.
+     *
+     * @param id the ID of the written person
+     */
+    private void invalidate(Long id) {
+        Runnable invalidation = () -> {
+            personCache.invalidate(id);
+            movieRecordCache.invalidatePerson(id);
+        };
+        invalidation.run();
+        applyAfterCommit(invalidation);
     }
 
     /**
@@ -100,67 +228,82 @@ public class PersonServiceImpl implements PersonService {
      *
      * @param personFilter the PersonFilter object containing the filter parameters
      * @param pageable     the Pageable object containing pagination and sorting parameters
-     * @return a pageable list of persons filtered by the given parameters
+     * @param cursor       the position after which the page starts, or {@code null} to use the page number
+     * @return a page of persons filtered by the given parameters, with the cursor of the next page
      */
     @Override
-    public List<Person> findAll(PersonFilter personFilter, Pageable pageable) {
-        Stream<Person> personStream;
-        if (personFilter.getFromBirthDate() != null && personFilter.getToBirthDate() != null) {
-            personStream = personRepository.findByBirthDateBetween(
-                    personFilter.getFromBirthDate(), personFilter.getToBirthDate(), pageable.getSort()).stream();
-        } else if (personFilter.getFromBirthDate() != null) {
-            personStream = personRepository.findByBirthDateAfter(
-                    personFilter.getFromBirthDate(), pageable.getSort()).stream();
-        } else if (personFilter.getToBirthDate() != null) {
-            personStream = personRepository.findByBirthDateBefore(
-                    personFilter.getToBirthDate(), pageable.getSort()).stream();
-        } else {
-            personStream = personRepository.findAll(pageable.getSort()).stream();
-        }
-        return personFilter
-                .filter(personStream)
-                .skip(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<Person> findAll(PersonFilter personFilter, Pageable pageable, PageCursor cursor) {
+        List<Person> persons = personRepository.findPage(personFilter.toSpecification(), pageable, cursor);
+        return new CursorPage<>(persons, PageCursor.next(persons, pageable, Person::getId));
+    }
+
+    /**
+     * Passes all persons matching the given filter to the consumer, ordered by ID.
+     * The persons are streamed from the database and detached in chunks, so memory use does not depend on their number.
+     *
+     * @param personFilter the filter criteria to apply
+     * @param consumer     the consumer of the exported persons
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void export(PersonFilter personFilter, Consumer<? super Person> consumer) {
+        personRepository.forEachChunk(personFilter.toSpecification(), Sort.by("id"), EXPORT_FETCH_SIZE, EXPORT_CHUNK_SIZE,
+                chunk -> chunk.forEach(consumer));
     }
 
     /**
      * Returns the count of persons matching the given filter criteria.
+     * The persons are counted by the database.
      *
      * @param personFilter the filter criteria to apply
      * @return the count of persons matching the filter criteria
      * @throws IllegalArgumentException if the provided filter is invalid
      */
     @Override
+    @Transactional(readOnly = true)
     public long count(PersonFilter personFilter) {
-        Stream<Person> personStream = personRepository.findAll().stream();
-        return personFilter
-                .filter(personStream).count();
+        return personRepository.count(personFilter.toSpecification());
+    }
+
+    /**
+     * Recounts the movies of every person into the {@link moviesApi.domain.PersonStats} read model,
+     * repairing the counts of persons and movies written bypassing the services.
+     *
+     * @return the number of persons
+     */
+    @Override
+    @Transactional
+    public int rebuildStats() {
+        personStatsRepository.deleteAllStats();
+        return personStatsRepository.insertAllFromMovies();
     }
 
     /**
      * Retrieves a summary of each person record with the amount of movies they acted in and directed.
+     * The filter and the page limits are applied by the summary query, and the counts are read
+     * from the {@link moviesApi.domain.PersonStats} of the persons on the requested page.
      *
+     * @param personFilter the filter criteria to apply
+     * @param pageable     the page size, page number and sort order
      * @return a list of {@link PersonRecord} objects containing the person's ID, first name, last name, amount of movies acted in, and amount of movies directed.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<PersonRecord> getSummary(PersonFilter personFilter, Pageable pageable) {
-        List<Object[]> results = personRepository.getUserRecords();
+        List<Object[]> results = personRepository.findSummaries(personFilter.toSpecification(), pageable);
         List<PersonRecord> userRecords = new ArrayList<>();
 
         for (Object[] row : results) {
-            Long id = ((Integer) row[0]).longValue();
+            Long id = (Long) row[0];
             String firstName = (String) row[1];
             String lastName = (String) row[2];
-            int asDirector = ((Number) row[3]).intValue();
-            int asActor = ((Number) row[4]).intValue();
+            int asDirector = row[3] != null ? ((Number) row[3]).intValue() : 0;
+            int asActor = row[4] != null ? ((Number) row[4]).intValue() : 0;
 
             PersonRecord personRecord = new PersonRecord(id, firstName, lastName, asActor, asDirector);
             userRecords.add(personRecord);
         }
-        return personFilter.filterRecord(userRecords.stream())
-                .skip(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .collect(Collectors.toList());
+        return userRecords;
     }
 }
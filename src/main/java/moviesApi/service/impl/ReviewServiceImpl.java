@@ -1,20 +1,29 @@
 package moviesApi.service.impl;
 
+import moviesApi.cache.MovieRecordCache;
 import moviesApi.domain.Review;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.CursorPage;
 import moviesApi.filter.ReviewFilter;
 import moviesApi.repository.ReviewRepository;
 import moviesApi.service.ReviewService;
+import moviesApi.summary.MovieRatings;
+import moviesApi.summary.RatingAggregate;
 import moviesApi.util.Constants;
+import moviesApi.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.text.DecimalFormat;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
+
+import static moviesApi.util.Constants.EXPORT_CHUNK_SIZE;
+import static moviesApi.util.Constants.EXPORT_FETCH_SIZE;
+import static moviesApi.util.InMemoryView.applyAfterCommit;
 
 import static moviesApi.util.Utilities.mapsToListOfSingletonMaps;
 import static moviesApi.util.Utilities.validateId;
@@ -22,22 +31,63 @@ import static moviesApi.util.Utilities.validateId;
 @Service
 public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
+    private final BulkWriter bulkWriter;
+    private final MovieRatings movieRatings;
+    private final MovieRecordCache movieRecordCache;
 
     @Autowired
-    public ReviewServiceImpl(ReviewRepository reviewRepository) {
+    public ReviewServiceImpl(ReviewRepository reviewRepository, BulkWriter bulkWriter,
+                             MovieRatings movieRatings, MovieRecordCache movieRecordCache) {
         this.reviewRepository = reviewRepository;
+        this.bulkWriter = bulkWriter;
+        this.movieRatings = movieRatings;
+        this.movieRecordCache = movieRecordCache;
     }
 
     @Override
+    @Transactional
     public Review save(Long movieId, Review review) {
         validateId(movieId);
         validateReview(review);
+        review.setId(null);
+        review.setVersion(null);
         review.setMovieId(movieId);
         review.setDateTime(LocalDateTime.now());
-        return reviewRepository.save(review);
+        Review savedReview = reviewRepository.save(review);
+        float rating = savedReview.getRating();
+        applyAfterCommit(() -> {
+            movieRatings.add(movieId, rating);
+            movieRecordCache.invalidate(movieId);
+        });
+        return savedReview;
+    }
+
+    /**
+     * Adds many reviews to a movie at once, see {@link BulkWriter}.
+     *
+     * @param movieId the ID of the reviewed movie
+     * @param reviews the reviews to add
+     * @return the outcome of every review, in the order of the given reviews
+     * @throws IllegalArgumentException if the movie ID is invalid, or no reviews or too many reviews are given
+     */
+    @Override
+    public List<BulkItemResult> saveAll(Long movieId, List<Review> reviews) throws IllegalArgumentException {
+        validateId(movieId);
+        LocalDateTime now = LocalDateTime.now();
+        return bulkWriter.write(reviews, review -> {
+            validateReview(review);
+            review.setId(null);
+            review.setVersion(null);
+            review.setMovieId(movieId);
+            review.setDateTime(now);
+        }, reviewRepository, Review::getId, saved -> {
+            saved.forEach(review -> movieRatings.add(movieId, review.getRating()));
+            movieRecordCache.invalidate(movieId);
+        });
     }
 
     @Override
+    @Transactional
     public Optional<Review> update(Long id, Review review) {
         validateId(id);
         Optional<Review> existingReviewOptional = findById(id);
@@ -46,6 +96,7 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         Review existingReview = existingReviewOptional.get();
+        float oldRating = existingReview.getRating();
         if (review.getRating() != null) {
             existingReview.setRating(review.getRating());
         }
@@ -55,44 +106,97 @@ public class ReviewServiceImpl implements ReviewService {
         if (review.getDateTime() != null) {
             existingReview.setDateTime(review.getDateTime());
         }
-        return Optional.of(reviewRepository.save(existingReview));
+        Review savedReview = reviewRepository.save(existingReview);
+        Long movieId = savedReview.getMovieId();
+        float rating = savedReview.getRating();
+        applyAfterCommit(() -> {
+            movieRatings.change(movieId, oldRating, rating);
+            movieRecordCache.invalidate(movieId);
+        });
+        return Optional.of(savedReview);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Review> findById(Long id) {
         validateId(id);
         return reviewRepository.findById(id);
     }
 
+    /**
+     * Returns the version of a review without loading the review.
+     *
+     * @param id the review ID
+     * @return the version, or an empty optional if the review does not exist
+     */
     @Override
-    public void deleteById(Long id) {
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersionById(Long id) {
         validateId(id);
-        reviewRepository.deleteById(id);
+        return reviewRepository.findVersionById(id);
     }
 
     @Override
-    public List<Review> findAll(ReviewFilter reviewFilter, Pageable pageable) {
-        Stream<Review> reviewStream;
-        if (reviewFilter.getFromDateTime() != null && reviewFilter.getToDateTime() != null) {
-            reviewStream = reviewRepository.findByDateTimeBetween(reviewFilter.getFromDateTime(), reviewFilter.getToDateTime(), pageable.getSort()).stream();
-        } else if (reviewFilter.getToDateTime() != null) {
-            reviewStream = reviewRepository.findByDateTimeBefore(reviewFilter.getToDateTime(), pageable.getSort()).stream();
-        } else if (reviewFilter.getFromDateTime() != null) {
-            reviewStream = reviewRepository.findByDateTimeAfter(reviewFilter.getFromDateTime(), pageable.getSort()).stream();
+    @Transactional
+    public void deleteById(Long id) {
+        validateId(id);
+        Optional<Review> review = reviewRepository.findById(id);
+        if (review.isPresent()) {
+            reviewRepository.delete(review.get());
         } else {
-            reviewStream = reviewRepository.findAll(pageable.getSort()).stream();
+            reviewRepository.deleteById(id);
         }
+        review.ifPresent(deleted -> {
+            Long movieId = deleted.getMovieId();
+            float rating = deleted.getRating();
+            applyAfterCommit(() -> {
+                movieRatings.remove(movieId, rating);
+                movieRecordCache.invalidate(movieId);
+            });
+        });
+    }
 
-        return reviewFilter.filter(reviewStream)
-                .skip(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .collect(Collectors.toList());
+    /**
+     * Returns a page of reviews matching the given filter.
+     * The filter, the sort order and the page limits are all applied by the database query.
+     *
+     * @param reviewFilter the filter criteria to apply
+     * @param pageable     the page size, page number and sort order
+     * @param cursor       the position after which the page starts, or {@code null} to use the page number
+     * @return a page of reviews, with the cursor of the next page
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Review> findAll(ReviewFilter reviewFilter, Pageable pageable, PageCursor cursor) {
+        List<Review> reviews = reviewRepository.findPage(reviewFilter.toSpecification(), pageable, cursor);
+        return new CursorPage<>(reviews, PageCursor.next(reviews, pageable, Review::getId));
+    }
+
+    /**
+     * Passes all reviews matching the given filter to the consumer, ordered by ID.
+     * The reviews are streamed from the database and detached in chunks, so memory use does not depend on their number.
+     *
+     * @param reviewFilter the filter criteria to apply
+     * @param consumer     the consumer of the exported reviews
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void export(ReviewFilter reviewFilter, Consumer<? super Review> consumer) {
+        reviewRepository.forEachChunk(reviewFilter.toSpecification(), Sort.by("id"), EXPORT_FETCH_SIZE, EXPORT_CHUNK_SIZE,
+                chunk -> chunk.forEach(consumer));
     }
 
+    /**
+     * Returns the count of reviews matching the given filter criteria.
+     * The reviews are counted by the database.
+     *
+     * @param reviewFilter the filter criteria to apply
+     * @return the count of reviews matching the filter criteria
+     */
     @Override
+    @Transactional(readOnly = true)
     public long count(ReviewFilter reviewFilter) {
-        Stream<Review> reviewStream = reviewRepository.findAll().stream();
-        return reviewFilter.filter(reviewStream).count();
+        return reviewRepository.count(reviewFilter.toSpecification());
     }
 
     /**
@@ -105,6 +209,12 @@ public class ReviewServiceImpl implements ReviewService {
      */
     @Override
     public void validateReview(Review review) {
+        if (review.getRating() == null) {
+            throw new IllegalArgumentException("Rating cannot be empty");
+        }
+        if (review.getText() == null) {
+            throw new IllegalArgumentException("Review text cannot be empty");
+        }
         if (review.getRating() < Constants.MIN_REVIEW_RATING || review.getRating() > Constants.MAX_REVIEW_RATING) {
             throw new IllegalArgumentException("Rating should be between " + Constants.MIN_REVIEW_RATING + " and " + Constants.MAX_REVIEW_RATING);
         }
@@ -117,7 +227,12 @@ public class ReviewServiceImpl implements ReviewService {
     @Override
     public int deleteByMovieId(Long movieId) {
         validateId(movieId);
-        return reviewRepository.deleteByMovieId(movieId);
+        int deleteCount = reviewRepository.deleteByMovieId(movieId);
+        applyAfterCommit(() -> {
+            movieRatings.removeMovie(movieId);
+            movieRecordCache.invalidate(movieId);
+        });
+        return deleteCount;
     }
 
     @Override
@@ -133,42 +248,31 @@ public class ReviewServiceImpl implements ReviewService {
      * Returns a list of maps, where each map contains a singleton map where the key is a rating group
      * and the value is the count of movies with the average rating within this rating group.
      * The rating groups are determined by the lower bounds of the rating intervals passed as input.
+     * The movies are counted over the {@link MovieRatings} when they are loaded, otherwise by a single grouped query
+     * over the per-movie averages, so no review is loaded in either case.
+     * The query answers while the ratings load, and always when they are switched off by {@code movies.summary.ratings.enabled}.
      *
      * @param ratingGroupLimits a list of float arrays where each float array represents a rating interval
      * @return a list of maps, where each map contains a singleton map with the rating group and the count of movies
      */
+    @Override
     public List<Map<String, Long>> getMovieCountByRating(List<Float[]> ratingGroupLimits) {
-        Map<String, Long> ratingCounts = createRatingGroups(ratingGroupLimits);
-        Map<Long, List<Float>> movieRatings = getMoviesRatings(reviewRepository.findAll());
-
-        for (Map.Entry<Long, List<Float>> entry : movieRatings.entrySet()) {
-
-            double averageRating = entry.getValue().stream()
-                    .mapToDouble(Float::doubleValue)
-                    .average()
-                    .orElse(0.0);
-            String ratingGroup = getRatingGroup(averageRating, ratingGroupLimits);
-
-            ratingCounts.putIfAbsent(ratingGroup, 0L);
-            ratingCounts.compute(ratingGroup, (k, v) -> v + 1);
-        }
+        Map<Integer, Long> countByGroup = movieRatings.getAll()
+                .map(aggregates -> {
+                    Map<Integer, Long> counts = new HashMap<>();
+                    for (RatingAggregate aggregate : aggregates.values()) {
+                        counts.merge(getRatingGroupIndex(aggregate.getAverage(), ratingGroupLimits), 1L, Long::sum);
+                    }
+                    return counts;
+                })
+                .orElseGet(() -> reviewRepository.countMoviesByAverageRating(ratingGroupLimits));
 
+        Map<String, Long> ratingCounts = createRatingGroups(ratingGroupLimits);
+        countByGroup.forEach((group, count) -> ratingCounts.merge(
+                group >= 0 ? getRatingGroupLabel(ratingGroupLimits.get(group)) : "", count, Long::sum));
         return mapsToListOfSingletonMaps(ratingCounts);
     }
 
-    /**
-     * Groups the reviews by movie ID and returns a map where each key is a movie ID and each value is a list of ratings for that movie
-     *
-     * @param reviews the list of reviews to be grouped
-     * @return a map where each key is a movie ID and each value is a list of ratings for that movie
-     */
-    private static Map<Long, List<Float>> getMoviesRatings(List<Review> reviews) {
-        return reviews
-                .stream()
-                .collect(Collectors.groupingBy(Review::getMovieId,
-                        Collectors.mapping(Review::getRating, Collectors.toList())));
-    }
-
     /**
      * Creates a map of rating groups with initial counts set to 0
      *
@@ -177,11 +281,8 @@ public class ReviewServiceImpl implements ReviewService {
      */
     public static Map<String, Long> createRatingGroups(List<Float[]> ratingGroupLimits) {
         Map<String, Long> ratingCounts = new HashMap<>();
-        DecimalFormat decimalFormat = new DecimalFormat("0.0");
         for (Float[] interval : ratingGroupLimits) {
-            String lowerBound = decimalFormat.format(interval[0]);
-            String upperBound = decimalFormat.format(interval[1]);
-            ratingCounts.put(lowerBound + "-" + upperBound, 0L);
+            ratingCounts.put(getRatingGroupLabel(interval), 0L);
         }
         return ratingCounts;
     }
@@ -198,11 +299,28 @@ public class ReviewServiceImpl implements ReviewService {
      * @return the rating group to which the average rating belongs, in the format of a string containing the lower and upper bounds of the rating interval
      */
     public static String getRatingGroup(double averageRating, List<Float[]> ratingGroupLimits) {
-        for (Float[] limit : ratingGroupLimits) {
+        int group = getRatingGroupIndex(averageRating, ratingGroupLimits);
+        return group >= 0 ? getRatingGroupLabel(ratingGroupLimits.get(group)) : "";
+    }
+
+    /**
+     * Returns the index of the first rating interval containing the average rating.
+     *
+     * @param averageRating     the average rating of a movie
+     * @param ratingGroupLimits a list of float arrays representing the lower and upper bounds of rating intervals
+     * @return the index of the rating interval, or {@code -1} if no interval contains the average rating
+     */
+    private static int getRatingGroupIndex(double averageRating, List<Float[]> ratingGroupLimits) {
+        for (int i = 0; i < ratingGroupLimits.size(); i++) {
+            Float[] limit = ratingGroupLimits.get(i);
             if (averageRating >= limit[0] && averageRating <= limit[1]) {
-                return String.format("%.1f-%.1f", limit[0], limit[1]);
+                return i;
             }
         }
-        return "";
+        return -1;
+    }
+
+    private static String getRatingGroupLabel(Float[] limit) {
+        return String.format(Locale.ROOT, "%.1f-%.1f", limit[0], limit[1]);
     }
 }
@@ -0,0 +1,124 @@
+package moviesApi.summary;
+
+import moviesApi.repository.ReviewRepository;
+import moviesApi.util.InMemoryView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * The {@link RatingAggregate} of every reviewed movie, an {@link InMemoryView} maintained by
+ * {@link moviesApi.service.ReviewService} and {@link moviesApi.service.MovieService},
+ * so that the rating summary and the movie records read one aggregate per movie instead of all its reviews.
+ * <p>
+ * The sum and the count are adjusted incrementally. The minimum and the maximum cannot be when the removed rating
+ * is one of them, so in that case they are read again from the reviews of the movie.
+ */
+@Component
+public class MovieRatings extends InMemoryView {
+    private final ReviewRepository reviewRepository;
+
+    private final Map<Long, RatingAggregate> aggregates = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MovieRatings(ReviewRepository reviewRepository, @Value("${movies.summary.ratings.enabled:true}") boolean enabled) {
+        super(enabled);
+        this.reviewRepository = reviewRepository;
+    }
+
+    /**
+     * Reads the aggregates of all movies with a single grouped query.
+     */
+    @Override
+    protected void load() {
+        aggregates.clear();
+        try (Stream<Object[]> rows = reviewRepository.streamRatingAggregates()) {
+            rows.forEach(row -> aggregates.put((Long) row[0], new RatingAggregate(
+                    ((Number) row[1]).doubleValue(), (Long) row[2], (Float) row[3], (Float) row[4])));
+        }
+    }
+
+    /**
+     * Adds the rating of a created review.
+     */
+    public void add(Long movieId, float rating) {
+        update(() -> aggregates.compute(movieId, (key, aggregate) -> aggregate != null
+                ? aggregate.plus(rating)
+                : new RatingAggregate(rating, 1, rating, rating)));
+    }
+
+    /**
+     * Removes the rating of a deleted review.
+     * The range of the remaining ratings is read outside of the map, without blocking the writers of other movies,
+     * and the removal is retried if a concurrent write replaced the aggregate of the movie in the meantime.
+     */
+    public void remove(Long movieId, float rating) {
+        update(() -> {
+            boolean applied = false;
+            while (!applied) {
+                RatingAggregate aggregate = aggregates.get(movieId);
+                if (aggregate == null) {
+                    return;
+                }
+                RatingAggregate remaining = without(movieId, aggregate, rating);
+                applied = remaining != null
+                        ? aggregates.replace(movieId, aggregate, remaining)
+                        : aggregates.remove(movieId, aggregate);
+            }
+        });
+    }
+
+    /**
+     * Replaces the rating of an updated review.
+     */
+    public void change(Long movieId, float oldRating, float newRating) {
+        if (oldRating != newRating) {
+            remove(movieId, oldRating);
+            add(movieId, newRating);
+        }
+    }
+
+    /**
+     * Removes the ratings of all reviews of a movie, after its reviews or the movie itself are deleted.
+     */
+    public void removeMovie(Long movieId) {
+        update(() -> aggregates.remove(movieId));
+    }
+
+    /**
+     * @return the aggregate without the given rating, or {@code null} if no rating remains
+     */
+    private RatingAggregate without(Long movieId, RatingAggregate aggregate, float rating) {
+        if (aggregate.getCount() <= 1) {
+            return null;
+        }
+        if (!aggregate.isBound(rating)) {
+            return aggregate.minus(rating, aggregate.getMin(), aggregate.getMax());
+        }
+        Object[] range = reviewRepository.findRatingRange(movieId).get(0);
+        if (range[0] == null) {
+            return null;
+        }
+        return aggregate.minus(rating, (Float) range[0], (Float) range[1]);
+    }
+
+    /**
+     * @return the aggregate of a movie, or an empty optional if the movie has no reviews or the aggregates are not loaded
+     */
+    public Optional<RatingAggregate> get(Long movieId) {
+        return read(() -> aggregates.get(movieId));
+    }
+
+    /**
+     * @return the aggregates of all reviewed movies by movie ID, or an empty optional if the aggregates are not loaded
+     */
+    public Optional<Map<Long, RatingAggregate>> getAll() {
+        return read(() -> Collections.unmodifiableMap(aggregates));
+    }
+}
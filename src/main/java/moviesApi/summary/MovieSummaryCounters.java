@@ -0,0 +1,111 @@
+package moviesApi.summary;
+
+import moviesApi.repository.MovieRepository;
+import moviesApi.util.InMemoryView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Movie counts by genre, release year and director, an {@link InMemoryView} maintained by {@link moviesApi.service.MovieService},
+ * so that the movie summary costs one read per distinct key instead of a scan of all movies.
+ * <p>
+ * Every key has its own striped {@link LongAdder}, so concurrent writes do not contend on a shared counter
+ * and apply their increments without excluding each other. A key keeps its counter when its last movie is removed,
+ * and is left out of the counts.
+ */
+@Component
+public class MovieSummaryCounters extends InMemoryView {
+    private final MovieRepository movieRepository;
+
+    private final Map<String, LongAdder> moviesByGenre = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> moviesByReleaseYear = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> moviesByDirector = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MovieSummaryCounters(MovieRepository movieRepository, @Value("${movies.summary.counters.enabled:true}") boolean enabled) {
+        super(enabled);
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Counts all movies from a single scan of their genre, release year and director.
+     */
+    @Override
+    protected void load() {
+        moviesByGenre.clear();
+        moviesByReleaseYear.clear();
+        moviesByDirector.clear();
+        try (Stream<Object[]> rows = movieRepository.streamSummaryRows()) {
+            rows.forEach(row -> add((String) row[0], (Integer) row[1], (Long) row[2], 1));
+        }
+    }
+
+    /**
+     * Counts a created movie.
+     */
+    public void increment(String genre, Integer releaseYear, Long directorId) {
+        update(genre, releaseYear, directorId, 1);
+    }
+
+    /**
+     * Stops counting a deleted movie, or the previous state of an updated movie.
+     */
+    public void decrement(String genre, Integer releaseYear, Long directorId) {
+        update(genre, releaseYear, directorId, -1);
+    }
+
+    /**
+     * @return the number of movies by genre, or an empty optional if the counters are not loaded
+     */
+    public Optional<Map<String, Long>> countByGenre() {
+        return snapshot(moviesByGenre);
+    }
+
+    /**
+     * @return the number of movies by release year, or an empty optional if the counters are not loaded
+     */
+    public Optional<Map<Integer, Long>> countByReleaseYear() {
+        return snapshot(moviesByReleaseYear);
+    }
+
+    /**
+     * @return the number of movies by director ID, or an empty optional if the counters are not loaded
+     */
+    public Optional<Map<Long, Long>> countByDirector() {
+        return snapshot(moviesByDirector);
+    }
+
+    private void update(String genre, Integer releaseYear, Long directorId, long delta) {
+        update(() -> add(genre, releaseYear, directorId, delta));
+    }
+
+    private void add(String genre, Integer releaseYear, Long directorId, long delta) {
+        moviesByGenre.computeIfAbsent(genre, key -> new LongAdder()).add(delta);
+        moviesByReleaseYear.computeIfAbsent(releaseYear, key -> new LongAdder()).add(delta);
+        moviesByDirector.computeIfAbsent(directorId, key -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Reads the counters, leaving out the keys without movies.
+     */
+    private <K> Optional<Map<K, Long>> snapshot(Map<K, LongAdder> counters) {
+        return read(() -> {
+            Map<K, Long> counts = new HashMap<>();
+            counters.forEach((key, counter) -> {
+                long count = counter.sum();
+                if (count > 0) {
+                    counts.put(key, count);
+                }
+            });
+            return counts;
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package moviesApi.summary;
+
+/**
+ * The sum, count, minimum and maximum of the review ratings of a movie.
+ * Instances are immutable, every write to the ratings of a movie replaces its aggregate.
+ */
+public class RatingAggregate {
+    private final double sum;
+    private final long count;
+    private final float min;
+    private final float max;
+
+    public RatingAggregate(double sum, long count, float min, float max) {
+        this.sum = sum;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public float getMin() {
+        return min;
+    }
+
+    public float getMax() {
+        return max;
+    }
+
+    public double getAverage() {
+        return sum / count;
+    }
+
+    RatingAggregate plus(float rating) {
+        return new RatingAggregate(sum + rating, count + 1, Math.min(min, rating), Math.max(max, rating));
+    }
+
+    RatingAggregate minus(float rating, float min, float max) {
+        return new RatingAggregate(sum - rating, count - 1, min, max);
+    }
+
+    /**
+     * @return whether removing the rating can change the minimum or the maximum
+     */
+    boolean isBound(float rating) {
+        return rating <= min || rating >= max;
+    }
+}
@@ -17,6 +17,16 @@ public class Constants {
     public static final String DEFAULT_PAGE = "0";
     public static final String DEFAULT_PAGE_SIZE = "10";
     public static final String DEFAULT_SORT = "id,asc";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+    public static final char LIKE_ESCAPE_CHAR = '\\';
+    public static final int EXPORT_FETCH_SIZE = 1000;
+    public static final int EXPORT_CHUNK_SIZE = 500;
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final int BULK_BATCH_SIZE = 500;
+    public static final int MAX_BULK_SIZE = 10_000;
+    public static final int MAX_RATING_BUCKETS = 20;
+    public static final int MAX_TITLE_INDEX_MATCHES = 1000;
 
     public static final String[] ALLOWED_REVIEW_SORT_PROPERTIES = {"id", "dateTime", "rating"};
     public static final String[] ALLOWED_MOVIE_SORT_PROPERTIES = {"id", "title", "releaseYear", "genre", "directorId"};
@@ -0,0 +1,115 @@
+package moviesApi.util;
+
+import moviesApi.domain.Person;
+import moviesApi.domain.Review;
+import moviesApi.dto.MovieRecord;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builds strong entity tags from the {@code @Version} of the returned entities.
+ * Controllers put the tag on their {@link org.springframework.http.ResponseEntity},
+ * and Spring MVC answers a matching {@code If-None-Match} with 304 Not Modified without writing the body.
+ */
+public class ETags {
+    private ETags() {
+    }
+
+    public static String of(Person person) {
+        return ofVersion(person.getVersion());
+    }
+
+    public static String of(Review review) {
+        return ofVersion(review.getVersion());
+    }
+
+    /**
+     * Tags an entity by its version alone, so that a conditional request can be answered without loading the entity.
+     *
+     * @param version the version of the entity
+     * @return the entity tag
+     */
+    public static String ofVersion(Long version) {
+        return quote(String.valueOf(version));
+    }
+
+    /**
+     * Tags a movie record with the version of the movie, the number and versions of the embedded persons and its rating.
+     * The persons a movie refers to only change with the movie version, and persons are created with new IDs,
+     * so for one movie version the embedded persons can only be updated or deleted.
+     * An update grows the sum of the person versions, and a deletion lowers the number of persons for good,
+     * so the pair of both changes whenever one of the persons does, even if the sum alone returns to an earlier value.
+     * The rating is not versioned and is included as it is.
+     *
+     * @param movieRecord the movie record
+     * @return the entity tag
+     */
+    public static String of(MovieRecord movieRecord) {
+        return ofMovie(movieRecord.getVersion(), personCount(movieRecord), personVersions(movieRecord),
+                movieRecord.getReviewCount(), movieRecord.getAverageRating());
+    }
+
+    /**
+     * Tags a movie record by its parts, so that a conditional request can be answered without assembling the record.
+     *
+     * @param version        the version of the movie
+     * @param personCount    the number of existing persons among the director and the distinct actors
+     * @param personVersions the sum of the versions of the director and of the distinct actors
+     * @param reviewCount    the review count of the record
+     * @param averageRating  the average rating of the record
+     * @return the entity tag, equal to the tag of the assembled record
+     */
+    public static String ofMovie(Long version, long personCount, long personVersions, Long reviewCount, Double averageRating) {
+        return quote(version + "." + personCount + "." + personVersions + "." + reviewCount + "." + averageRating);
+    }
+
+    /**
+     * Tags a list with a digest of the IDs and tags of its items, so that the tag changes
+     * when an item changes, enters or leaves the list, or moves within it.
+     *
+     * @param items  the items of the list
+     * @param getId  returns the ID of an item
+     * @param getTag returns the tag of an item
+     * @param <T>    the type of the items
+     * @return the entity tag
+     */
+    public static <T> String ofList(List<T> items, Function<T, Long> getId, Function<T, String> getTag) {
+        StringBuilder builder = new StringBuilder();
+        for (T item : items) {
+            builder.append(getId.apply(item)).append(':').append(getTag.apply(item)).append(',');
+        }
+        return quote(DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long personCount(MovieRecord movieRecord) {
+        long count = movieRecord.getDirector() != null ? 1 : 0;
+        if (movieRecord.getActors() != null) {
+            count += movieRecord.getActors().size();
+        }
+        return count;
+    }
+
+    private static long personVersions(MovieRecord movieRecord) {
+        long versions = 0;
+        if (movieRecord.getDirector() != null) {
+            versions += versionOf(movieRecord.getDirector());
+        }
+        if (movieRecord.getActors() != null) {
+            for (Person actor : movieRecord.getActors()) {
+                versions += versionOf(actor);
+            }
+        }
+        return versions;
+    }
+
+    private static long versionOf(Person person) {
+        return person.getVersion() != null ? person.getVersion() : 0;
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,171 @@
+package moviesApi.util;
+
+import moviesApi.datasource.ReadWriteRoutingDataSource;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Base class of the in-memory views of the database, such as the movie index and the summary counters.
+ * <p>
+ * A view is switched on by a property. It is loaded from the database when the application starts and is then
+ * kept up to date by the services after every committed write, so its data must not be written bypassing the services.
+ * A view that is disabled or not loaded yet is not ready, and its readers fall back to the database.
+ * <p>
+ * Loading takes the write lock of the view, so writes made while the view is loading wait until it is loaded
+ * instead of being overwritten by the load. A view whose structures are thread-safe applies its writes under the read lock,
+ * so that they run concurrently, other views apply them under the write lock.
+ * <p>
+ * The services pass their writes to the views with {@link #applyAfterCommit(Runnable)}, so that a load contains
+ * every committed write exactly once, either read from the database or applied afterwards.
+ * It is the only after-commit hook of the services, their cache evictions go through it as well.
+ */
+public abstract class InMemoryView {
+    /**
+     * Held shared by a writing transaction from just before its commit until its writes are applied to the views,
+     * and exclusively while a view loads.
+     */
+    private static final ReentrantReadWriteLock LOAD_LOCK = new ReentrantReadWriteLock();
+
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    protected InMemoryView(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads the view from the database, replacing its previous content.
+     * The view is read from the primary, a replica may lag behind the writes the services apply to the view afterwards.
+     * The view is not ready while it is loading, nor after a failed load.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LOAD_LOCK.writeLock().lock();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            // the transaction requests its connection on the first statement of the load, so it is routed to the primary,
+            // and it reads the database as of that statement, after the pending writes were applied
+            ReadWriteRoutingDataSource.onPrimary(() -> {
+                load();
+                return null;
+            });
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+            LOAD_LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the given writes to the views after the current transaction commits, or immediately if there is no transaction.
+     * The writes are not run if the transaction is rolled back.
+     * <p>
+     * A transaction that commits while a view loads waits for the load, so its write is not in the loaded data and
+     * is applied afterwards. A load waits for the committed transactions whose writes are not applied yet,
+     * so a write that is in the loaded data is applied before the load clears the view, not on top of it.
+     *
+     * @param writes the writes to the views
+     */
+    public static void applyAfterCommit(Runnable writes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            LOAD_LOCK.readLock().lock();
+            try {
+                writes.run();
+            } finally {
+                LOAD_LOCK.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                LOAD_LOCK.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                writes.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    LOAD_LOCK.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Clears the view and reads it from the database. Called under the write lock.
+     */
+    protected abstract void load();
+
+    /**
+     * Applies a write which may run concurrently with other writes. Ignored when the view is disabled.
+     */
+    protected void update(Runnable write) {
+        if (!enabled) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            write.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a write which excludes other writes and reads. Ignored when the view is disabled.
+     */
+    protected void updateExclusively(Runnable write) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            write.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the view while no exclusive write is applied.
+     *
+     * @return the result of the read, or an empty optional if the view is not ready
+     */
+    protected <T> Optional<T> read(Supplier<T> read) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(read.get());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
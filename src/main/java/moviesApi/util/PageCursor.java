@@ -0,0 +1,177 @@
+package moviesApi.util;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An opaque keyset pagination cursor.
+ * It stores the sort order of a listing together with the sort key and the ID of the last entity of a page,
+ * so that the next page can be read by seeking past that entity instead of skipping rows with an offset.
+ * Entities with equal sort keys are ordered by ID, which is used as a tiebreaker.
+ */
+public class PageCursor {
+    private static final String ID_PROPERTY = "id";
+    private static final String SEPARATOR = "\n";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final long id;
+    private final Comparable<?> value;
+
+    private PageCursor(String property, Sort.Direction direction, long id, Comparable<?> value) {
+        this.property = property;
+        this.direction = direction;
+        this.id = id;
+        this.value = value;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Decodes a cursor and checks that it was created for the given sort order.
+     *
+     * @param token       the encoded cursor
+     * @param sort        the sort order of the requested listing
+     * @param entityClass the class of the listed entities, used to parse the sort key
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the cursor is malformed or was created for a different sort order
+     */
+    public static PageCursor decode(String token, Sort sort, Class<?> entityClass) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(ID_PROPERTY));
+        if (parts.length < 3 || !order.getProperty().equals(parts[0])
+                || !order.getDirection().name().equals(parts[1])) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(entityClass, order.getProperty());
+        if (descriptor == null) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        try {
+            return new PageCursor(order.getProperty(), order.getDirection(), Long.parseLong(parts[2]),
+                    parts.length > 3 ? parse(descriptor.getPropertyType(), parts[3]) : null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Creates the cursor pointing past the last entity of a page.
+     *
+     * @param page        the entities of the page
+     * @param pageable    the page request that was used to read the page
+     * @param idExtractor a function returning the ID of an entity
+     * @param <T>         the entity type
+     * @return the encoded cursor of the next page, or {@code null} if the page is the last one
+     */
+    public static <T> String next(List<T> page, Pageable pageable, Function<T, Long> idExtractor) {
+        if (page.isEmpty() || pageable.isUnpaged() || page.size() < pageable.getPageSize()) {
+            return null;
+        }
+        T last = page.get(page.size() - 1);
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(ID_PROPERTY));
+        Object sortKey = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue(order.getProperty());
+        return new PageCursor(order.getProperty(), order.getDirection(), idExtractor.apply(last),
+                (Comparable<?>) sortKey).encode();
+    }
+
+    /**
+     * Appends the ID as a tiebreaker to the given sort order, so that the order of a listing is total.
+     *
+     * @param sort the requested sort order
+     * @return the sort order followed by the ID in the direction of the last order
+     */
+    public static Sort withIdTiebreaker(Sort sort) {
+        if (sort.isUnsorted()) {
+            return Sort.by(Sort.Order.asc(ID_PROPERTY));
+        }
+        if (sort.getOrderFor(ID_PROPERTY) != null) {
+            return sort;
+        }
+        Sort.Direction direction = sort.stream().reduce((first, second) -> second).get().getDirection();
+        return sort.and(Sort.by(direction, ID_PROPERTY));
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + id + (value == null ? "" : SEPARATOR + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a specification selecting the entities that come after the cursor position in the cursor sort order.
+     * NULL sort keys are ordered first in ascending order, as MySQL does.
+     *
+     * @param <T> the entity type
+     * @return the seek predicate
+     */
+    public <T> Specification<T> toSpecification() {
+        boolean ascending = direction.isAscending();
+        return (root, query, criteriaBuilder) -> {
+            Predicate afterId = after(criteriaBuilder, root.get(ID_PROPERTY), id, ascending);
+            if (property.equals(ID_PROPERTY)) {
+                return afterId;
+            }
+            Path<Object> path = root.get(property);
+            if (value == null) {
+                Predicate equalKeyAfterId = criteriaBuilder.and(criteriaBuilder.isNull(path), afterId);
+                return ascending ? criteriaBuilder.or(equalKeyAfterId, criteriaBuilder.isNotNull(path)) : equalKeyAfterId;
+            }
+            Predicate seek = criteriaBuilder.or(
+                    after(criteriaBuilder, path, value, ascending),
+                    criteriaBuilder.and(criteriaBuilder.equal(path, value), afterId));
+            return ascending ? seek : criteriaBuilder.or(seek, criteriaBuilder.isNull(path));
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder criteriaBuilder, Expression path, Comparable value, boolean ascending) {
+        return ascending ? criteriaBuilder.greaterThan(path, value) : criteriaBuilder.lessThan(path, value);
+    }
+
+    private static Comparable<?> parse(Class<?> type, String value) {
+        if (type == String.class) {
+            return value;
+        } else if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == Float.class || type == float.class) {
+            return Float.valueOf(value);
+        } else if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        throw new IllegalArgumentException("Unsupported cursor property type: " + type.getSimpleName());
+    }
+}
@@ -34,6 +34,43 @@ public class Utilities {
         return orders;
     }
 
+    /**
+     * Parses rating buckets given as comma-separated inclusive ranges, for example {@code 1-4.9,5-7.9,8-10}.
+     *
+     * @param buckets the rating buckets
+     * @return a list of float arrays where each float array holds the lower and upper bound of a bucket
+     * @throws IllegalArgumentException if a bucket is malformed, out of the rating range or overlaps another bucket,
+     *                                  or if there are more than {@link Constants#MAX_RATING_BUCKETS} buckets
+     */
+    public static List<Float[]> parseRatingGroupLimits(String buckets) {
+        String[] ranges = buckets.split(",");
+        if (ranges.length > Constants.MAX_RATING_BUCKETS) {
+            throw new IllegalArgumentException("Maximum number of rating buckets is " + Constants.MAX_RATING_BUCKETS);
+        }
+        List<Float[]> ratingGroupLimits = new ArrayList<>();
+        for (String range : ranges) {
+            String[] bounds = range.trim().split("-");
+            Float[] limits;
+            try {
+                limits = new Float[]{Float.parseFloat(bounds[0]), Float.parseFloat(bounds[1])};
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid rating bucket: " + range);
+            }
+            // NaN fails every comparison below, so non-finite bounds are rejected explicitly
+            if (bounds.length != 2 || !Float.isFinite(limits[0]) || !Float.isFinite(limits[1]) || limits[0] > limits[1]
+                    || limits[0] < Constants.MIN_REVIEW_RATING || limits[1] > Constants.MAX_REVIEW_RATING) {
+                throw new IllegalArgumentException("Invalid rating bucket: " + range);
+            }
+            for (Float[] other : ratingGroupLimits) {
+                if (limits[0] <= other[1] && other[0] <= limits[1]) {
+                    throw new IllegalArgumentException("Rating buckets cannot overlap: " + range);
+                }
+            }
+            ratingGroupLimits.add(limits);
+        }
+        return ratingGroupLimits;
+    }
+
     /**
      * Extracts the values from a map into a list of singleton maps where each key-value pair from the map becomes
      * a single map entry in the result list.
@@ -55,4 +92,54 @@ public class Utilities {
         }
         throw new IllegalArgumentException("Wrong ID: " + id);
     }
-}
+
+    /**
+     * Converts IDs into an array of their distinct values in ascending order.
+     *
+     * @param ids the IDs
+     * @return the sorted distinct IDs
+     */
+    public static long[] toSortedDistinctArray(Collection<Long> ids) {
+        long[] sorted = new long[ids.size()];
+        int size = 0;
+        for (Long id : ids) {
+            sorted[size++] = id;
+        }
+        return toSortedDistinctArray(sorted);
+    }
+
+    /**
+     * Sorts IDs in place and returns their distinct values in ascending order.
+     *
+     * @param ids the IDs, reordered by the call
+     * @return the sorted distinct IDs, the given array itself if the IDs are distinct
+     */
+    public static long[] toSortedDistinctArray(long[] ids) {
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    /**
+     * Escapes the LIKE wildcards of the given value so it can be used as a literal substring pattern.
+     * The escape character is {@link Constants#LIKE_ESCAPE_CHAR}.
+     *
+     * @param value the value to escape
+     * @return the value with {@code %}, {@code _} and the escape character escaped
+     */
+    public static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == Constants.LIKE_ESCAPE_CHAR) {
+                escaped.append(Constants.LIKE_ESCAPE_CHAR);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }}
@@ -0,0 +1,31 @@
+package moviesApi;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+public class DatabaseConfigTest {
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testPoolMetricsArePublished() throws SQLException {
+        try (Connection connection = primaryDataSource.getConnection()) {
+            assertNotNull(connection);
+        }
+        for (String name : new String[]{"hikaricp.connections.active", "hikaricp.connections.idle",
+                "hikaricp.connections.pending", "hikaricp.connections.acquire"}) {
+            assertNotNull(meterRegistry.find(name).tag("pool", primaryDataSource.getPoolName()).meter(), name);
+        }
+    }
+}
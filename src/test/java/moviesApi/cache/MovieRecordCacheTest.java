@@ -0,0 +1,114 @@
+package moviesApi.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import moviesApi.domain.Person;
+import moviesApi.dto.MovieRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+import static moviesApi.util.TestHelper.generatePersonWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieRecordCacheTest {
+    private final Map<Long, Integer> loads = new HashMap<>();
+    private MovieRecordCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new MovieRecordCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testGetAssemblesOnlyOnMiss() {
+        assertEquals(1L, get(1L).orElseThrow().getId());
+        assertEquals(1L, get(1L).orElseThrow().getId());
+        assertEquals(1, loads.get(1L));
+
+        assertTrue(get(99L).isEmpty());
+        assertTrue(get(99L).isEmpty());
+        assertEquals(2, loads.get(99L));
+    }
+
+    @Test
+    public void testInvalidateMovie() {
+        get(1L);
+        get(2L);
+        cache.invalidate(1L);
+        get(1L);
+        get(2L);
+        assertEquals(2, loads.get(1L));
+        assertEquals(1, loads.get(2L));
+    }
+
+    @Test
+    public void testInvalidatePersonEvictsDependentMovies() {
+        // movie 1 is directed by person 11 and stars person 100, movie 2 by 12 and 100, movie 3 by 13 and 101
+        get(1L);
+        get(2L);
+        get(3L);
+        assertEquals(Set.of(1L, 2L), cache.getMovieIds(100L));
+        assertEquals(Set.of(1L), cache.getMovieIds(11L));
+
+        cache.invalidatePerson(100L);
+        assertEquals(Set.of(), cache.getMovieIds(100L));
+        assertEquals(Set.of(), cache.getMovieIds(11L));
+        assertEquals(Set.of(3L), cache.getMovieIds(13L));
+
+        get(1L);
+        get(2L);
+        get(3L);
+        assertEquals(2, loads.get(1L));
+        assertEquals(2, loads.get(2L));
+        assertEquals(1, loads.get(3L));
+        assertEquals(Set.of(1L, 2L), cache.getMovieIds(100L));
+    }
+
+    @Test
+    public void testInvalidateUnknownPerson() {
+        get(1L);
+        cache.invalidatePerson(999L);
+        get(1L);
+        assertEquals(1, loads.get(1L));
+    }
+
+    @Test
+    public void testEvictionUnlinksPersons() {
+        MovieRecordCache smallCache = new MovieRecordCache(1, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        for (long movieId = 1; movieId <= 20; movieId++) {
+            smallCache.get(movieId, this::load);
+        }
+        Set<Long> linkedMovieIds = new HashSet<>();
+        for (long personId = 11; personId <= 30; personId++) {
+            linkedMovieIds.addAll(smallCache.getMovieIds(personId));
+        }
+        linkedMovieIds.addAll(smallCache.getMovieIds(100L));
+        linkedMovieIds.addAll(smallCache.getMovieIds(101L));
+        assertTrue(linkedMovieIds.size() <= 1, linkedMovieIds.toString());
+    }
+
+    private Optional<MovieRecord> get(Long movieId) {
+        return cache.get(movieId, this::load);
+    }
+
+    private Optional<MovieRecord> load(Long movieId) {
+        loads.merge(movieId, 1, Integer::sum);
+        if (movieId > 50) {
+            return Optional.empty();
+        }
+        MovieRecord movieRecord = new MovieRecord();
+        movieRecord.setId(movieId);
+        movieRecord.setDirector(person(10 + movieId));
+        movieRecord.setActors(Set.of(person(movieId % 3 == 0 ? 101L : 100L)));
+        return Optional.of(movieRecord);
+    }
+
+    private static Person person(long id) {
+        Person person = generatePersonWithParams("First" + id, "Last" + id, LocalDate.of(1980, 1, 1));
+        person.setId(id);
+        return person;
+    }
+}
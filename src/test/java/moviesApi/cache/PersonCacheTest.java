@@ -0,0 +1,101 @@
+package moviesApi.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import moviesApi.domain.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static moviesApi.util.TestHelper.generatePersonWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersonCacheTest {
+    private final Map<Long, Person> persons = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private PersonCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        for (long id = 1; id <= 5; id++) {
+            Person person = generatePersonWithParams("First" + id, "Last" + id, LocalDate.of(1980, 1, (int) id));
+            person.setId(id);
+            persons.put(id, person);
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new PersonCache(3, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Test
+    public void testGetLoadsOnlyOnMiss() {
+        assertEquals(persons.get(1L), cache.get(1L, this::load).orElseThrow());
+        assertEquals(persons.get(1L), cache.get(1L, this::load).orElseThrow());
+        assertEquals(1, loads.get());
+
+        assertTrue(cache.get(99L, this::load).isEmpty());
+        assertTrue(cache.get(99L, this::load).isEmpty());
+        assertEquals(3, loads.get());
+
+        assertEquals(1.0, counter("cache.gets", "hit"));
+        assertEquals(3.0, counter("cache.gets", "miss"));
+    }
+
+    @Test
+    public void testCachedPersonIsACopy() {
+        Person cached = cache.get(1L, this::load).orElseThrow();
+        persons.get(1L).setFirstName("Changed");
+        assertNotSame(persons.get(1L), cached);
+        assertEquals("First1", cache.get(1L, this::load).orElseThrow().getFirstName());
+    }
+
+    @Test
+    public void testGetAllLoadsMissingPersonsTogether() {
+        cache.get(1L, this::load);
+        List<Set<Long>> batches = new ArrayList<>();
+        Map<Long, Person> found = cache.getAll(List.of(1L, 2L, 3L, 99L), ids -> {
+            batches.add(ids);
+            return ids.stream().filter(persons::containsKey).collect(Collectors.toMap(id -> id, persons::get));
+        });
+        assertEquals(List.of(Set.of(2L, 3L, 99L)), batches);
+        assertEquals(Set.of(1L, 2L, 3L), found.keySet());
+        assertEquals(persons.get(2L), found.get(2L));
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.get(1L, this::load);
+        persons.get(1L).setFirstName("Changed");
+        cache.invalidate(1L);
+        assertEquals("Changed", cache.get(1L, this::load).orElseThrow().getFirstName());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        for (long id = 1; id <= 5; id++) {
+            cache.get(id, this::load);
+        }
+        assertTrue(counter("cache.evictions", null) >= 2);
+    }
+
+    private Optional<Person> load(Long id) {
+        loads.incrementAndGet();
+        return Optional.ofNullable(persons.get(id));
+    }
+
+    private double counter(String name, String result) {
+        var search = meterRegistry.find(name).tag("cache", PersonCache.NAME);
+        if (result != null) {
+            search = search.tag("result", result);
+        }
+        FunctionCounter counter = search.functionCounter();
+        assertNotNull(counter, name);
+        return counter.count();
+    }
+}
@@ -1,12 +1,21 @@
 package moviesApi.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import moviesApi.SecurityConfig;
+import moviesApi.cache.MovieRecordCache;
 import moviesApi.domain.Movie;
+import moviesApi.domain.Person;
 import moviesApi.domain.Review;
+import moviesApi.dto.BulkItemResult;
 import moviesApi.dto.MovieRecord;
+import moviesApi.repository.ReviewRepository;
 import moviesApi.service.MovieService;
+import moviesApi.service.PersonService;
 
 import moviesApi.service.ReviewService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -19,20 +28,33 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static moviesApi.util.Constants.NEXT_CURSOR_HEADER;
 import static moviesApi.util.TestHelper.*;
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -58,7 +80,15 @@ class MovieControllerTest {
     @Autowired
     private ReviewService reviewService;
     @Autowired
+    private PersonService personService;
+    @Autowired
+    private MovieRecordCache movieRecordCache;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
     private TestEntityManager entityManager;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
@@ -102,10 +132,10 @@ class MovieControllerTest {
         assertEquals(movie.getGenre(), savedMovie.getGenre());
         assertEquals(movie.getReleaseYear(), savedMovie.getReleaseYear());
         assertEquals(movie.getDirectorId(), savedMovie.getDirectorId());
-        assertEquals(movie.getActorIds(), savedMovie.getActorIds());
+        assertEquals(new ArrayList<>(movie.getActorIds()), new ArrayList<>(savedMovie.getActorIds()));
 
         // Call the getMovieById method
-        response = movieController.getMovieById(savedMovie.getId());
+        response = movieController.getMovieById(savedMovie.getId(), new ServletWebRequest(new MockHttpServletRequest()));
         MovieRecord movieRecord = (MovieRecord) response.getBody();
         // Verify the response
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -119,11 +149,71 @@ class MovieControllerTest {
         assertEquals(HttpStatus.NO_CONTENT, deleteResponse.getStatusCode());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreateMovieIgnoresIdAndVersion() {
+        Movie existing = generateMovie();
+        entityManager.persist(existing);
+        entityManager.flush();
+
+        Movie movie = generateMovieWithParams("Another title", "Drama", 2001, existing.getDirectorId(), List.of(2L));
+        movie.setId(existing.getId());
+        movie.setVersion(5L);
+        ResponseEntity<?> response = movieController.createMovie(movie);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        Movie savedMovie = (Movie) response.getBody();
+        assertNotNull(savedMovie);
+        assertNotEquals(existing.getId(), savedMovie.getId());
+        assertEquals(Long.valueOf(0), savedMovie.getVersion());
+        assertEquals(existing.getTitle(), movieService.findById(existing.getId()).get().getTitle());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreateMovies() {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Movie movie = generateMovie();
+            movie.setTitle("Bulk movie " + i);
+            movie.setDirectorId(12L);
+            movies.add(movie);
+        }
+        movies.get(1).setReleaseYear(0);
+
+        ResponseEntity<?> response = movieController.createMovies(movies);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        List<BulkItemResult> results = (List<BulkItemResult>) response.getBody();
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertNull(results.get(1).getId());
+        assertNotNull(results.get(1).getError());
+
+        for (int i : new int[]{0, 2}) {
+            assertNull(results.get(i).getError());
+            Optional<Movie> savedMovie = movieService.findById(results.get(i).getId());
+            assertTrue(savedMovie.isPresent());
+            assertEquals("Bulk movie " + i, savedMovie.get().getTitle());
+            assertEquals(new ArrayList<>(movies.get(i).getActorIds()), new ArrayList<>(savedMovie.get().getActorIds()));
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreateMoviesWithoutMovies() {
+        ResponseEntity<?> response = movieController.createMovies(List.of());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetMovieByWrongId() {
         long wrongId = -1L;
-        ResponseEntity<?> response = movieController.getMovieById(wrongId);
+        ResponseEntity<?> response = movieController.getMovieById(wrongId, new ServletWebRequest(new MockHttpServletRequest()));
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -131,7 +221,7 @@ class MovieControllerTest {
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetMovieByNonExistingId() {
         long wrongId = 999999999L;
-        ResponseEntity<?> response = movieController.getMovieById(wrongId);
+        ResponseEntity<?> response = movieController.getMovieById(wrongId, new ServletWebRequest(new MockHttpServletRequest()));
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -143,7 +233,7 @@ class MovieControllerTest {
         entityManager.persist(testMovie);
         entityManager.flush();
 
-        ResponseEntity<MovieRecord> response = (ResponseEntity<MovieRecord>) movieController.getMovieById(testMovie.getId());
+        ResponseEntity<MovieRecord> response = (ResponseEntity<MovieRecord>) movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest()));
 
         // Verify the response
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -158,6 +248,75 @@ class MovieControllerTest {
         movieService.deleteById(testMovie.getId());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetMovieByIdETagFollowsDirector() {
+        Person director = generatePerson();
+        entityManager.persist(director);
+        Movie testMovie = generateMovie();
+        testMovie.setDirectorId(director.getId());
+        entityManager.persist(testMovie);
+        entityManager.flush();
+
+        String eTag = movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest())).getHeaders().getETag();
+        assertNotNull(eTag);
+        assertEquals(eTag, movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest())).getHeaders().getETag());
+
+        Person update = new Person();
+        update.setLastName("Renamed");
+        personService.update(director.getId(), update);
+        entityManager.flush();
+
+        ResponseEntity<?> response = movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest()));
+        assertNotEquals(eTag, response.getHeaders().getETag());
+        assertEquals("Renamed", ((MovieRecord) response.getBody()).getDirector().getLastName());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetMovieByIdNotModified() {
+        Person director = generatePerson();
+        entityManager.persist(director);
+        Person actor = generatePerson();
+        entityManager.persist(actor);
+        Movie testMovie = generateMovie();
+        testMovie.setDirectorId(director.getId());
+        // the director also acts, and an actor is listed twice
+        testMovie.setActorIds(List.of(actor.getId(), director.getId(), actor.getId()));
+        entityManager.persist(testMovie);
+        entityManager.flush();
+
+        String eTag = movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest()))
+                .getHeaders().getETag();
+        assertNotNull(eTag);
+        assertEquals(Optional.of(eTag), movieService.findRecordETagById(testMovie.getId()));
+
+        // without the cached record the tag is read from the versions
+        movieRecordCache.invalidateAll();
+        assertEquals(Optional.of(eTag), movieService.findRecordETagById(testMovie.getId()));
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertNull(movieController.getMovieById(testMovie.getId(), conditionalRequest(eTag, notModified)));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getStatus());
+        assertTrue(movieRecordCache.getIfPresent(testMovie.getId()).isEmpty());
+
+        assertEquals(HttpStatus.NOT_FOUND, movieController.getMovieById(Long.MAX_VALUE,
+                conditionalRequest(eTag, new MockHttpServletResponse())).getStatusCode());
+
+        Person update = new Person();
+        update.setLastName("Renamed");
+        personService.update(actor.getId(), update);
+        entityManager.flush();
+        ResponseEntity<?> response = movieController.getMovieById(testMovie.getId(), conditionalRequest(eTag, new MockHttpServletResponse()));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(eTag, response.getHeaders().getETag());
+    }
+
+    private static ServletWebRequest conditionalRequest(String eTag, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/movies");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        return new ServletWebRequest(request, response);
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testUpdateMovieWithIncorrectId() {
@@ -175,7 +334,7 @@ class MovieControllerTest {
         entityManager.persist(testMovie);
         entityManager.flush();
 
-        ResponseEntity<?> response = movieController.getMovieById(testMovie.getId());
+        ResponseEntity<?> response = movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest()));
         MovieRecord movieRecord = (MovieRecord) response.getBody();
         testMovie.setGenre("");
 
@@ -192,7 +351,7 @@ class MovieControllerTest {
         entityManager.persist(testMovie);
         entityManager.flush();
 
-        ResponseEntity<?> response = movieController.getMovieById(testMovie.getId());
+        ResponseEntity<?> response = movieController.getMovieById(testMovie.getId(), new ServletWebRequest(new MockHttpServletRequest()));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         MovieRecord movieRecord = (MovieRecord) response.getBody();
@@ -220,7 +379,37 @@ class MovieControllerTest {
         assertEquals(testMovie.getGenre(), savedMovie.getGenre());
         assertEquals(testMovie.getReleaseYear(), savedMovie.getReleaseYear());
         assertEquals(testMovie.getDirectorId(), savedMovie.getDirectorId());
-        assertEquals(testMovie.getActorIds(), savedMovie.getActorIds());
+        assertEquals(new ArrayList<>(testMovie.getActorIds()), new ArrayList<>(savedMovie.getActorIds()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testActorIdsAreDistinctAndSorted() throws IOException {
+        Person director = generatePerson();
+        entityManager.persist(director);
+        Person first = generatePerson();
+        entityManager.persist(first);
+        Person second = generatePerson();
+        entityManager.persist(second);
+
+        // duplicate actor IDs are dropped, and the IDs come back in ascending order rather than in the order sent
+        String json = "{\"title\": \"Sorted Actors\", \"genre\": \"Drama\", \"releaseYear\": 2004,"
+                + " \"directorId\": " + director.getId() + ","
+                + " \"actorIds\": [" + second.getId() + ", " + first.getId() + ", " + second.getId() + "]}";
+        ResponseEntity<?> response = movieController.createMovie(objectMapper.readValue(json, Movie.class));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Movie savedMovie = (Movie) response.getBody();
+        assertEquals(objectMapper.valueToTree(List.of(first.getId(), second.getId())),
+                objectMapper.valueToTree(savedMovie).get("actorIds"));
+
+        json = "{\"actorIds\": [" + director.getId() + ", " + second.getId() + ", " + second.getId() + "]}";
+        response = movieController.updateMovie(savedMovie.getId(), objectMapper.readValue(json, Movie.class));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        entityManager.flush();
+        entityManager.clear();
+        Movie updatedMovie = entityManager.find(Movie.class, savedMovie.getId());
+        assertEquals(objectMapper.valueToTree(List.of(director.getId(), second.getId())),
+                objectMapper.valueToTree(updatedMovie).get("actorIds"));
     }
 
     @Test
@@ -283,12 +472,71 @@ class MovieControllerTest {
         reviewController.deleteReview(savedReview.getId());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testAddReviewIgnoresIdAndVersion() {
+        Movie movie = generateMovie();
+        entityManager.persist(movie);
+        Review existing = generateReviewWithParams(movie.getId(), 4f, "Existing", LocalDateTime.now());
+        entityManager.persist(existing);
+        entityManager.flush();
+
+        Review review = generateReviewWithParams(movie.getId(), 9f, "New", LocalDateTime.now());
+        review.setId(existing.getId());
+        review.setVersion(3L);
+        ResponseEntity<?> response = movieController.addReview(movie.getId(), review);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        Review savedReview = (Review) response.getBody();
+        assertNotNull(savedReview);
+        assertNotEquals(existing.getId(), savedReview.getId());
+        assertEquals(Long.valueOf(0), savedReview.getVersion());
+        assertEquals("Existing", reviewService.findById(existing.getId()).get().getText());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testAddReviews() {
+        Movie movie = generateMovie();
+        entityManager.persist(movie);
+        entityManager.flush();
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Review review = generateReview();
+            review.setText("Bulk review " + i);
+            reviews.add(review);
+        }
+        reviews.get(2).setRating(13f);
+
+        ResponseEntity<?> response = movieController.addReviews(-1L, reviews);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        response = movieController.addReviews(999999999L, reviews);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+        response = movieController.addReviews(movie.getId(), reviews);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BulkItemResult> results = (List<BulkItemResult>) response.getBody();
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertNull(results.get(2).getId());
+        assertNotNull(results.get(2).getError());
+        for (int i = 0; i < 2; i++) {
+            assertNull(results.get(i).getError());
+            Optional<Review> savedReview = reviewService.findById(results.get(i).getId());
+            assertTrue(savedReview.isPresent());
+            assertEquals(movie.getId(), (long) savedReview.get().getMovieId());
+            assertEquals("Bulk review " + i, savedReview.get().getText());
+        }
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetReviewsByWrongMovieId() {
         Long wrongId = -1L;
         ResponseEntity<?> response = movieController.getReviewsByMovieId(
-                wrongId, null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                wrongId, null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -302,7 +550,7 @@ class MovieControllerTest {
         LocalDateTime wrongDate = LocalDateTime.of(1000, 10, 10, 20, 20);
 
         ResponseEntity<?> response = movieController.getReviewsByMovieId(
-                movie.getId(), wrongDate, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                movie.getId(), wrongDate, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
     }
 
@@ -314,7 +562,7 @@ class MovieControllerTest {
         entityManager.flush();
 
         ResponseEntity<?> response = movieController.getReviewsByMovieId(
-                movie.getId(), null, null, null, null, null, null, null, 0, 50, new String[]{"id123", "asc"});
+                movie.getId(), null, null, null, null, null, null, null, 0, 50, new String[]{"id123", "asc"}, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -323,7 +571,7 @@ class MovieControllerTest {
     public void testGetReviewsByNonExistingMovieId() {
         long wrongId = 99999999999L;
         ResponseEntity<?> response = movieController.getReviewsByMovieId(
-                wrongId, null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                wrongId, null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -335,7 +583,7 @@ class MovieControllerTest {
         entityManager.flush();
 
         ResponseEntity<?> response = movieController.getReviewsByMovieId(
-                movie.getId(), null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                movie.getId(), null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
     }
 
@@ -355,7 +603,7 @@ class MovieControllerTest {
         reviewService.save(movie.getId(), review2);
 
         ResponseEntity<?> response = movieController.getReviewsByMovieId(
-                movie.getId(), null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                movie.getId(), null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         List<Review> reviews = (List<Review>) response.getBody();
@@ -366,7 +614,7 @@ class MovieControllerTest {
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetAllMoviesWithWrongSortOrder() {
         ResponseEntity<?> response = movieController.getAllMovies(
-                null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc123"});
+                null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc123"}, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -375,7 +623,7 @@ class MovieControllerTest {
     public void testGetAllMoviesWithWrongGenre() {
         String wrongGenre = "someWrongGenre";
         ResponseEntity<?> response = movieController.getAllMovies(
-                null, new String[]{wrongGenre}, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                null, new String[]{wrongGenre}, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
     }
 
@@ -383,7 +631,7 @@ class MovieControllerTest {
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetAllMoviesWithWrongSortParameter() {
         ResponseEntity<?> response = movieController.getAllMovies(
-                null, null, null, null, null, null, null, 0, 50, new String[]{"wrongValue", "asc"});
+                null, null, null, null, null, null, null, 0, 50, new String[]{"wrongValue", "asc"}, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -401,7 +649,7 @@ class MovieControllerTest {
 
         // Call the getAllMovies method by part of title
         ResponseEntity<?> response = movieController.getAllMovies(
-                "_test", null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                "_test", null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
 
         List<MovieRecord> movies = (List<MovieRecord>) response.getBody();
@@ -413,7 +661,7 @@ class MovieControllerTest {
 
         // Call the getAllMovies method with genre filter
         response = movieController.getAllMovies(
-                null, new String[]{"Action"}, null, null, null, null, null, 0, 10, new String[]{"id", "asc"});
+                null, new String[]{"Action"}, null, null, null, null, null, 0, 10, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
 
         movies = (List<MovieRecord>) response.getBody();
@@ -422,6 +670,174 @@ class MovieControllerTest {
         assertTrue(movieIds.contains(movie3.getId()));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetAllMoviesWithPaging() {
+        Movie movie1 = generateMovieWithParams("Paged Movie_paging", "Drama", 1994, 1L, Arrays.asList(1L, 2L));
+        Movie movie2 = generateMovieWithParams("Paged Movie_paging", "Drama", 1995, 1L, Arrays.asList(1L, 3L));
+        Movie movie3 = generateMovieWithParams("Paged Movie_paging", "Drama", 1996, 1L, Arrays.asList(2L, 3L));
+
+        entityManager.persist(movie1);
+        entityManager.persist(movie2);
+        entityManager.persist(movie3);
+        entityManager.flush();
+
+        ResponseEntity<?> response = movieController.getAllMovies(
+                "movie_paging", null, null, 1995, null, 1L, new Long[]{3L}, 0, 1, new String[]{"releaseYear", "desc"}, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<MovieRecord> movies = (List<MovieRecord>) response.getBody();
+        assertEquals(1, movies.size());
+        assertEquals(movie3.getId(), movies.get(0).getId());
+
+        response = movieController.getAllMovies(
+                "movie_paging", null, null, 1995, null, 1L, new Long[]{3L}, 1, 1, new String[]{"releaseYear", "desc"}, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        movies = (List<MovieRecord>) response.getBody();
+        assertEquals(1, movies.size());
+        assertEquals(movie2.getId(), movies.get(0).getId());
+
+        response = movieController.getAllMovies(
+                "movie_paging", null, null, 1995, null, 1L, new Long[]{3L}, 2, 1, new String[]{"releaseYear", "desc"}, null);
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetAllMoviesWithCursor() {
+        Movie movie1 = generateMovieWithParams("Cursor Movie_cursor", "Drama", 1994, 1L, Arrays.asList(1L, 2L));
+        Movie movie2 = generateMovieWithParams("Cursor Movie_cursor", "Drama", 1995, 1L, Arrays.asList(1L, 3L));
+        Movie movie3 = generateMovieWithParams("Cursor Movie_cursor", "Drama", 1995, 1L, Arrays.asList(2L, 3L));
+
+        entityManager.persist(movie1);
+        entityManager.persist(movie2);
+        entityManager.persist(movie3);
+        entityManager.flush();
+
+        String[] sort = new String[]{"releaseYear", "desc"};
+        ResponseEntity<?> response = movieController.getAllMovies(
+                "movie_cursor", null, null, null, null, null, null, 0, 2, sort, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<MovieRecord> movies = (List<MovieRecord>) response.getBody();
+        assertEquals(List.of(movie3.getId(), movie2.getId()), movies.stream().map(MovieRecord::getId).toList());
+        String cursor = response.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        response = movieController.getAllMovies(
+                "movie_cursor", null, null, null, null, null, null, 0, 2, sort, cursor);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        movies = (List<MovieRecord>) response.getBody();
+        assertEquals(List.of(movie1.getId()), movies.stream().map(MovieRecord::getId).toList());
+        assertNull(response.getHeaders().getFirst(NEXT_CURSOR_HEADER));
+
+        response = movieController.getAllMovies(
+                "movie_cursor", null, null, null, null, null, null, 0, 2, new String[]{"title", "desc"}, cursor);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetAllMoviesResolvesDirectorsAndActors() {
+        Movie movie1 = generateMovieWithParams("Batch Movie_persons", "Drama", 1994, 1L, Arrays.asList(2L, 3L));
+        Movie movie2 = generateMovieWithParams("Batch Movie_persons", "Drama", 1995, 4L, Arrays.asList(3L, 5L, 6L));
+
+        entityManager.persist(movie1);
+        entityManager.persist(movie2);
+        entityManager.flush();
+
+        ResponseEntity<?> response = movieController.getAllMovies(
+                "movie_persons", null, null, null, null, null, null, 0, 10, new String[]{"releaseYear", "asc"}, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<MovieRecord> movies = (List<MovieRecord>) response.getBody();
+        assertEquals(2, movies.size());
+
+        assertEquals(1L, movies.get(0).getDirector().getId());
+        assertEquals(List.of(2L, 3L), movies.get(0).getActors().stream().map(Person::getId).sorted().toList());
+        assertEquals(4L, movies.get(1).getDirector().getId());
+        assertEquals(List.of(3L, 5L, 6L), movies.get(1).getActors().stream().map(Person::getId).sorted().toList());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetAllMoviesOutsideOfTransaction() {
+        ResponseEntity<?> response = movieController.getAllMovies(
+                null, null, null, null, null, null, null, 0, 10, new String[]{"id", "asc"}, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<MovieRecord> movies = (List<MovieRecord>) response.getBody();
+        assertFalse(movies.isEmpty());
+        for (MovieRecord movie : movies) {
+            assertNotNull(movie.getActors());
+            response = movieController.getMovieById(movie.getId(), new ServletWebRequest(new MockHttpServletRequest()));
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(movie.getActors(), ((MovieRecord) response.getBody()).getActors());
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testMovieListsLoadActorsWithOneQuery() throws IOException {
+        for (int i = 0; i < 7; i++) {
+            entityManager.persist(generateMovieWithParams("Batch Movie_actors", "Drama", 1990 + i, 1L, Arrays.asList(2L, 3L + i)));
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        // loads the persons into the person cache, so that only the movie queries are counted
+        movieController.getAllMovies("movie_actors", null, null, null, null, null, null, 0, 10, new String[]{"id", "asc"}, null);
+        statistics.setStatisticsEnabled(true);
+        try {
+            entityManager.clear();
+            statistics.clear();
+            ResponseEntity<?> response = movieController.getAllMovies(
+                    "movie_actors", null, null, null, null, null, null, 0, 10, new String[]{"id", "asc"}, null);
+            assertEquals(7, ((List<MovieRecord>) response.getBody()).size());
+            assertEquals(2, statistics.getPrepareStatementCount());
+
+            entityManager.clear();
+            statistics.clear();
+            response = movieController.exportMovies("movie_actors", null, null, null, null, null, null);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ((StreamingResponseBody) response.getBody()).writeTo(output);
+            assertEquals(7, output.toString(StandardCharsets.UTF_8).split("\n").length);
+            assertEquals(2, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testExportMovies() throws IOException {
+        Movie movie1 = generateMovieWithParams("Exported Movie_export", "Drama", 1994, 1L, Arrays.asList(2L, 3L));
+        Movie movie2 = generateMovieWithParams("Exported Movie_export", "Drama", 1995, 4L, Arrays.asList(5L));
+
+        entityManager.persist(movie1);
+        entityManager.persist(movie2);
+        entityManager.flush();
+
+        ResponseEntity<?> response = movieController.exportMovies("movie_export", null, null, null, null, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(output);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(movie1.getId(), first.get("id").asLong());
+        assertEquals(1L, first.get("director").get("id").asLong());
+        assertEquals(2, first.get("actors").size());
+        assertEquals(movie2.getId(), objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testExportMoviesWithWrongReleaseYear() {
+        ResponseEntity<?> response = movieController.exportMovies(null, null, 34, null, null, null, null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetCountWithWrongReleaseYear() {
@@ -509,7 +925,88 @@ class MovieControllerTest {
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetSummaryWithWrongModeParameter() {
         String wrongMode = "wrongMode";
-        ResponseEntity<?> response = movieController.getSummary(wrongMode);
+        ResponseEntity<?> response = movieController.getSummary(wrongMode, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetSummaryByGenreMatchesMovies() {
+        Map<String, Long> expected = new HashMap<>();
+        for (Object[] row : entityManager.getEntityManager()
+                .createQuery("SELECT m.genre, COUNT(m) FROM Movie m GROUP BY m.genre", Object[].class)
+                .getResultList()) {
+            expected.put((String) row[0], (Long) row[1]);
+        }
+
+        ResponseEntity<?> response = movieController.getSummary("GENRE", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<String, Long> actual = new HashMap<>();
+        for (Map<String, Long> count : (List<Map<String, Long>>) response.getBody()) {
+            actual.putAll(count);
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetMovieByIdHasRatingOfReviews() {
+        Object[] rating = entityManager.getEntityManager()
+                .createQuery("SELECT r.movieId, AVG(r.rating), COUNT(r) FROM Review r GROUP BY r.movieId ORDER BY r.movieId", Object[].class)
+                .setMaxResults(1)
+                .getSingleResult();
+
+        ResponseEntity<MovieRecord> response = (ResponseEntity<MovieRecord>) movieController.getMovieById((Long) rating[0], new ServletWebRequest(new MockHttpServletRequest()));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals((Long) rating[2], response.getBody().getReviewCount());
+        assertEquals((Double) rating[1], response.getBody().getAverageRating(), 1e-6);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetSummaryByRatingBuckets() {
+        ResponseEntity<?> response = movieController.getSummary("RATING", "1-3, 3.5-6,6.5-10");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<String, Long> actual = new HashMap<>();
+        for (Map<String, Long> count : (List<Map<String, Long>>) response.getBody()) {
+            actual.putAll(count);
+        }
+
+        List<Float[]> limits = List.of(new Float[]{1f, 3f}, new Float[]{3.5f, 6f}, new Float[]{6.5f, 10f});
+        String[] labels = {"1.0-3.0", "3.5-6.0", "6.5-10.0"};
+        Map<String, Long> expected = new HashMap<>(Map.of(labels[0], 0L, labels[1], 0L, labels[2], 0L));
+        reviewRepository.countMoviesByAverageRating(limits)
+                .forEach((group, count) -> expected.put(group >= 0 ? labels[group] : "", count));
+        assertEquals(expected, actual);
+        assertTrue(actual.values().stream().mapToLong(Long::longValue).sum() > 0);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetSummaryWithInvalidRatingBuckets() {
+        ResponseEntity<?> response = movieController.getSummary("RATING", "5-1");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetReviewsByMovieIdWithRatingRangeAndDateOrder() {
+        Movie movie = generateMovie();
+        entityManager.persist(movie);
+        Movie otherMovie = generateMovie();
+        entityManager.persist(otherMovie);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            entityManager.persist(generateReviewWithParams(movie.getId(), 1 + i, "Review " + i, start.plusDays(i)));
+            entityManager.persist(generateReviewWithParams(otherMovie.getId(), 1 + i, "Other review " + i, start.plusDays(i)));
+        }
+        entityManager.flush();
+
+        ResponseEntity<?> response = movieController.getReviewsByMovieId(
+                movie.getId(), null, null, null, null, 4f, 7f, "review", 0, 3, new String[]{"dateTime", "desc"}, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Review> reviews = (List<Review>) response.getBody();
+        assertEquals(List.of(7f, 6f, 5f), reviews.stream().map(Review::getRating).collect(Collectors.toList()));
+        assertTrue(reviews.stream().allMatch(review -> review.getMovieId().equals(movie.getId())));
+    }
+}
@@ -1,7 +1,13 @@
 package moviesApi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import moviesApi.SecurityConfig;
+import moviesApi.domain.Movie;
 import moviesApi.domain.Person;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.dto.PersonRecord;
+import moviesApi.filter.PersonFilter;
+import moviesApi.service.MovieService;
 import moviesApi.service.PersonService;
 
 import moviesApi.util.Constants;
@@ -16,21 +22,38 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import static moviesApi.util.TestHelper.generateMovie;
 import static moviesApi.util.TestHelper.generatePerson;
+import static moviesApi.util.TestHelper.generatePersonWithParams;
 import static moviesApi.util.TestHelper.generateStringBySize;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 @AutoConfigureTestEntityManager
 @ComponentScan(basePackages = "moviesApi")
@@ -46,14 +69,18 @@ class PersonControllerTest {
     @Autowired
     private PersonService personService;
     @Autowired
+    private MovieService movieService;
+    @Autowired
     private TestEntityManager entityManager;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testGetAllPersonsWithWrongBirthDateParameter() {
         LocalDate wrongBirthDate = LocalDate.of(3000, 1, 1);
         ResponseEntity<?> response = personController.getAllPersons(
-                null, null, wrongBirthDate, null, null, 0, 50, new String[]{"id", "asc"});
+                null, null, wrongBirthDate, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -68,7 +95,7 @@ class PersonControllerTest {
 
         // Call the getAllPersons method
         ResponseEntity<?> response = personController.getAllPersons(
-                null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         List<Person> persons = (List<Person>) response.getBody();
         // Verify the response
@@ -108,6 +135,29 @@ class PersonControllerTest {
         personService.deleteById(person1.getId());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testExportPersons() throws IOException {
+        Person person1 = generatePerson();
+        person1.setFirstName("exportNameTest");
+        Person person2 = generatePerson();
+        person2.setFirstName("exportNameTest");
+
+        entityManager.persist(person1);
+        entityManager.persist(person2);
+        entityManager.flush();
+
+        ResponseEntity<?> response = personController.exportPersons("exportNameTest", null, null, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(output);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(person1.getId(), objectMapper.readValue(lines[0], Person.class).getId());
+        assertEquals(person2.getId(), objectMapper.readValue(lines[1], Person.class).getId());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testCreatePersonWithNullFirstName() {
@@ -149,7 +199,7 @@ class PersonControllerTest {
         assertEquals(person.getBirthDate(), savedPerson.getBirthDate());
 
         // Call the getPersonById method
-        response = personController.getPersonById(savedPerson.getId());
+        response = personController.getPersonById(savedPerson.getId(), new ServletWebRequest(new MockHttpServletRequest()));
 
         // Verify the response
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -159,6 +209,53 @@ class PersonControllerTest {
         assertEquals(HttpStatus.NO_CONTENT, deleteResponse.getStatusCode());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreatePersonIgnoresIdAndVersion() {
+        Person existing = generatePerson();
+        entityManager.persist(existing);
+        entityManager.flush();
+
+        Person person = generatePersonWithParams("Another", "Person", LocalDate.of(1980, 1, 1));
+        person.setId(existing.getId());
+        person.setVersion(5L);
+        ResponseEntity<?> response = personController.createPerson(person);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        Person savedPerson = (Person) response.getBody();
+        assertNotNull(savedPerson);
+        assertNotEquals(existing.getId(), savedPerson.getId());
+        assertEquals(Long.valueOf(0), savedPerson.getVersion());
+        assertEquals(existing.getFirstName(), personService.findById(existing.getId()).get().getFirstName());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreatePersons() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            persons.add(generatePersonWithParams("Bulk" + i, "Person", LocalDate.of(1980, 1, 1 + i)));
+        }
+        persons.get(0).setBirthDate(LocalDate.now().plusDays(1));
+
+        ResponseEntity<?> response = personController.createPersons(persons);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BulkItemResult> results = (List<BulkItemResult>) response.getBody();
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertNull(results.get(0).getId());
+        assertNotNull(results.get(0).getError());
+        for (int i = 1; i < 3; i++) {
+            assertNull(results.get(i).getError());
+            Optional<Person> savedPerson = personService.findById(results.get(i).getId());
+            assertTrue(savedPerson.isPresent());
+            assertEquals("Bulk" + i, savedPerson.get().getFirstName());
+        }
+
+        response = personController.createPersons(List.of());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
 
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
@@ -170,7 +267,7 @@ class PersonControllerTest {
         entityManager.flush();
 
         // Call the getPersonById method
-        ResponseEntity<Person> response = personController.getPersonById(testPerson.getId());
+        ResponseEntity<Person> response = personController.getPersonById(testPerson.getId(), new ServletWebRequest(new MockHttpServletRequest()));
 
         // Verify the response
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -180,6 +277,33 @@ class PersonControllerTest {
         personService.deleteById(testPerson.getId());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetPersonByIdNotModified() {
+        Person testPerson = generatePerson();
+        entityManager.persist(testPerson);
+        entityManager.flush();
+
+        String eTag = personController.getPersonById(testPerson.getId(), new ServletWebRequest(new MockHttpServletRequest()))
+                .getHeaders().getETag();
+        assertNotNull(eTag);
+
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertNull(personController.getPersonById(testPerson.getId(), conditionalRequest(eTag, notModified)));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getStatus());
+
+        assertEquals(HttpStatus.NOT_FOUND, personController.getPersonById(Long.MAX_VALUE,
+                conditionalRequest(eTag, new MockHttpServletResponse())).getStatusCode());
+        assertEquals(HttpStatus.OK, personController.getPersonById(testPerson.getId(),
+                conditionalRequest("\"stale\"", new MockHttpServletResponse())).getStatusCode());
+    }
+
+    private static ServletWebRequest conditionalRequest(String eTag, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/persons");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        return new ServletWebRequest(request, response);
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void testUpdatePersonWithWrongId() {
@@ -236,8 +360,77 @@ class PersonControllerTest {
     public void testGetSummary() {
         int wrongPage=-1;
         ResponseEntity<?> response = personController.getSummary(
-                null, null, wrongPage, 10
+                null, null, null, null, null, null, wrongPage, 10
         );
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetSummaryById() {
+        Person director = personService.save(generatePerson());
+        Person actor = personService.save(generatePerson());
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Movie movie = generateMovie();
+            movie.setDirectorId(director.getId());
+            movie.setActorIds(new ArrayList<>(List.of(actor.getId(), director.getId())));
+            movies.add(movieService.save(movie));
+        }
+
+        assertSummary(director, 2, 2);
+        assertSummary(actor, 0, 2);
+
+        Movie changed = new Movie();
+        changed.setDirectorId(actor.getId());
+        changed.setActorIds(new ArrayList<>(List.of(director.getId())));
+        movieService.update(movies.get(0).getId(), changed);
+        assertSummary(director, 1, 2);
+        assertSummary(actor, 1, 1);
+
+        movieService.deleteById(movies.get(1).getId());
+        assertSummary(director, 0, 1);
+        assertSummary(actor, 1, 0);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testRebuildSummary() {
+        Person director = generatePerson();
+        entityManager.persist(director);
+        Movie movie = generateMovie();
+        movie.setDirectorId(director.getId());
+        entityManager.persist(movie);
+        entityManager.flush();
+
+        ResponseEntity<?> response = personController.rebuildSummary();
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertTrue(Integer.parseInt(response.getHeaders().getFirst("X-Rebuilt-Count")) > 0);
+        assertSummary(director, 1, 0);
+    }
+
+    private void assertSummary(Person person, int asDirector, int asActor) {
+        ResponseEntity<?> response = personController.getSummary(
+                person.getId(), null, null, null, null, null, 0, 10
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<PersonRecord> summary = (List<PersonRecord>) response.getBody();
+        assertEquals(1, summary.size());
+        assertEquals(person.getId(), summary.get(0).getId());
+        assertEquals(asDirector, summary.get(0).getAsDirector());
+        assertEquals(asActor, summary.get(0).getAsActor());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetSummaryPage() {
+        ResponseEntity<?> response = personController.getSummary(
+                null, null, null, null, null, null, 1, 2
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<PersonRecord> summary = (List<PersonRecord>) response.getBody();
+        List<Person> persons = personService.findAll(PersonFilter.builder().build(), PageRequest.of(1, 2, Sort.by("id")), null).getContent();
+        assertEquals(persons.stream().map(Person::getId).collect(Collectors.toList()),
+                summary.stream().map(PersonRecord::getId).collect(Collectors.toList()));
+    }
 }
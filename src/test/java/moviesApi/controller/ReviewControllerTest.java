@@ -15,8 +15,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,6 +26,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,6 +35,8 @@ import java.util.Optional;
 import static moviesApi.util.TestHelper.generateReview;
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -86,7 +91,7 @@ class ReviewControllerTest {
     public void testGetAllReviewsWithWrongMovieId() {
         long wrongMovieId = -1L;
         ResponseEntity<?> response = reviewController.getAllReviews(
-                null, wrongMovieId, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                null, wrongMovieId, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -95,7 +100,7 @@ class ReviewControllerTest {
     public void testGetAllReviewsWithNonExistingId() {
         long wrongMovieId = 9999999L;
         ResponseEntity<?> response = reviewController.getAllReviews(
-                null, wrongMovieId, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                null, wrongMovieId, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -107,7 +112,7 @@ class ReviewControllerTest {
         entityManager.flush();
 
         ResponseEntity<?> response = reviewController.getAllReviews(
-                null, null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"});
+                null, null, null, null, null, null, null, null, 0, 50, new String[]{"id", "asc"}, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         List<Review> allReviews = (List<Review>) response.getBody();
@@ -167,7 +172,7 @@ class ReviewControllerTest {
     @WithMockUser(username = "admin", roles = "ADMIN")
     void getReviewsByWrongId() {
         Long wrongId = -1L;
-        ResponseEntity<?> response = reviewController.getReviewById(wrongId);
+        ResponseEntity<?> response = reviewController.getReviewById(wrongId, new ServletWebRequest(new MockHttpServletRequest()));
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -177,7 +182,7 @@ class ReviewControllerTest {
         Review testReview = generateReview();
         reviewService.save(testReview.getMovieId(), testReview);
 
-        ResponseEntity<?> response = reviewController.getReviewById(testReview.getId());
+        ResponseEntity<?> response = reviewController.getReviewById(testReview.getId(), new ServletWebRequest(new MockHttpServletRequest()));
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(testReview, response.getBody());
 
@@ -241,4 +246,40 @@ class ReviewControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews/count").params(params))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testGetReviewByIdWithETag() throws Exception {
+        Review testReview = generateReview();
+        entityManager.persist(testReview);
+        entityManager.flush();
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews/{id}", testReview.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews/{id}", testReview.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews/{id}", Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotFound());
+
+        Review update = new Review();
+        update.setText("Updated review text");
+        reviewService.update(testReview.getId(), update);
+        entityManager.flush();
+
+        String newETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews/{id}", testReview.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+
+        String listETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(listETag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reviews").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isNotModified());
+    }
+}
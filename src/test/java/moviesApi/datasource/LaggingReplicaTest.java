@@ -0,0 +1,130 @@
+package moviesApi.datasource;
+
+import moviesApi.domain.Movie;
+import moviesApi.domain.Person;
+import moviesApi.dto.MovieRecord;
+import moviesApi.filter.MovieFilter;
+import moviesApi.filter.PersonFilter;
+import moviesApi.index.MovieBitmapIndex;
+import moviesApi.service.MovieService;
+import moviesApi.service.PersonService;
+import moviesApi.service.ReviewService;
+import moviesApi.summary.MovieRatings;
+import moviesApi.summary.MovieSummaryCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static moviesApi.util.TestHelper.generateMovieWithParams;
+import static moviesApi.util.TestHelper.generatePerson;
+import static moviesApi.util.TestHelper.generatePersonWithParams;
+import static moviesApi.util.TestHelper.generateReviewWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application against an embedded primary and an embedded replica which stops replicating after {@link #setUp()},
+ * so that reads which must see the latest writes fail if they are served by the replica.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lagging-primary;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "movies.index.enabled=true",
+        "movies.datasource.replicas[0].url=jdbc:h2:mem:lagging-replica;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE",
+        "movies.datasource.replicas[0].username=sa",
+        "movies.datasource.replicas[0].password="})
+public class LaggingReplicaTest {
+    @Autowired
+    private PersonService personService;
+    @Autowired
+    private MovieService movieService;
+    @Autowired
+    private ReviewService reviewService;
+    @Autowired
+    private MovieBitmapIndex movieIndex;
+    @Autowired
+    private MovieSummaryCounters summaryCounters;
+    @Autowired
+    private MovieRatings movieRatings;
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    private Person director;
+    private Movie movie;
+
+    @BeforeEach
+    public void setUp() {
+        director = personService.save(generatePerson());
+        Person actor = personService.save(generatePerson());
+        movie = movieService.save(generateMovieWithParams("Replicated", "Drama", 2001, director.getId(), List.of(actor.getId())));
+        replicate();
+    }
+
+    @Test
+    public void testListingsReadTheReplica() {
+        Person created = personService.save(generatePerson());
+        List<Person> persons = personService.findAll(PersonFilter.builder().withId(created.getId()).build(),
+                PageRequest.of(0, 10, Sort.by("id")), null).getContent();
+        assertTrue(persons.isEmpty());
+    }
+
+    @Test
+    public void testCacheLoadsReadThePrimary() {
+        personService.update(director.getId(), generatePersonWithParams("Renamed", "Director", director.getBirthDate()));
+
+        // the movie and its persons are listed from the replica, the stale persons are not cached
+        List<MovieRecord> movies = movieService.filterMovies(MovieFilter.builder().withTitle("Replicated").build(),
+                PageRequest.of(0, 100, Sort.by("id")), null).getContent();
+        assertFalse(movies.isEmpty());
+        movies.forEach(movieRecord -> assertEquals("Test", movieRecord.getDirector().getFirstName()));
+        assertEquals("Renamed", personService.findById(director.getId()).orElseThrow().getFirstName());
+
+        // once cached from the primary, the persons are listed from the cache
+        movies = movieService.filterMovies(MovieFilter.builder().withTitle("Replicated").build(),
+                PageRequest.of(0, 100, Sort.by("id")), null).getContent();
+        movies.forEach(movieRecord -> assertEquals("Renamed", movieRecord.getDirector().getFirstName()));
+
+        Movie created = movieService.save(generateMovieWithParams("Not replicated", "Drama", 2002, director.getId(),
+                List.of(director.getId())));
+        MovieRecord movieRecord = movieService.findRecordById(created.getId()).orElseThrow();
+        assertEquals("Renamed", movieRecord.getDirector().getFirstName());
+    }
+
+    @Test
+    public void testRebuildsReadThePrimary() {
+        Movie created = movieService.save(generateMovieWithParams("Not replicated", "Western", 2003, director.getId(),
+                List.of(director.getId())));
+        reviewService.save(movie.getId(), generateReviewWithParams(movie.getId(), 8f, "Review", LocalDateTime.now()));
+
+        movieIndex.rebuild();
+        summaryCounters.rebuild();
+        movieRatings.rebuild();
+
+        assertEquals(List.of(created.getId()), movieIndex.findPage(MovieFilter.builder().withGenre(new String[]{"Western"}).build(),
+                PageRequest.of(0, 10, Sort.by("id")), null).orElseThrow());
+        assertEquals(1L, summaryCounters.countByGenre().orElseThrow().get("Western"));
+        assertEquals(1L, movieRatings.get(movie.getId()).orElseThrow().getCount());
+    }
+
+    /**
+     * Copies the primary into the replica.
+     */
+    private void replicate() {
+        JdbcTemplate primary = new JdbcTemplate(routingDataSource.getPools().get(0));
+        JdbcTemplate replica = new JdbcTemplate(routingDataSource.getPools().get(1));
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT NOPASSWORDS NOSETTINGS", String.class).forEach(replica::execute);
+    }
+}
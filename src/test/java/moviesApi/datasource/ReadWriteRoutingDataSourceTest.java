@@ -0,0 +1,222 @@
+package moviesApi.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import moviesApi.controller.NdjsonBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static moviesApi.util.Constants.CONSISTENCY_TOKEN_HEADER;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between embedded databases standing in for the primary and its replicas,
+ * each of which knows its own name.
+ */
+public class ReadWriteRoutingDataSourceTest {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private HikariDataSource primary;
+    private HikariDataSource replica1;
+    private HikariDataSource replica2;
+
+    @BeforeEach
+    public void setUp() {
+        primary = database("primary");
+        replica1 = database("replica1");
+        replica2 = database("replica2");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReadWriteRoutingDataSource.clearPrimaryRequired();
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToReplica() {
+        Route route = new Route(primary, List.of(replica1));
+        assertEquals("replica1", route.read());
+        assertEquals("primary", route.write());
+        assertEquals("primary", route.jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    public void testReplicasTakeTurns() {
+        Route route = new Route(primary, List.of(replica1, replica2));
+        List<String> names = List.of(route.read(), route.read(), route.read(), route.read());
+        assertEquals(2, names.stream().filter("replica1"::equals).count());
+        assertEquals(2, names.stream().filter("replica2"::equals).count());
+    }
+
+    @Test
+    public void testWithoutReplicasEverythingGoesToPrimary() {
+        Route route = new Route(primary, List.of());
+        assertEquals("primary", route.read());
+        assertEquals("primary", route.write());
+    }
+
+    @Test
+    public void testPrimaryRequired() {
+        Route route = new Route(primary, List.of(replica1));
+        ReadWriteRoutingDataSource.setPrimaryRequired();
+        assertEquals("primary", route.read());
+        ReadWriteRoutingDataSource.clearPrimaryRequired();
+        assertEquals("replica1", route.read());
+    }
+
+    @Test
+    public void testOnPrimaryRestoresRoute() {
+        Route route = new Route(primary, List.of(replica1));
+        assertEquals("primary", ReadWriteRoutingDataSource.onPrimary(route::read));
+        assertEquals("replica1", route.read());
+
+        ReadWriteRoutingDataSource.setPrimaryRequired();
+        assertEquals("primary", ReadWriteRoutingDataSource.onPrimary(route::read));
+        assertEquals("primary", route.read());
+    }
+
+    @Test
+    public void testConsistencyTokenRoutesNextReadToPrimary() throws Exception {
+        Route route = new Route(primary, List.of(replica1));
+        ConsistencyTokenFilter filter = new ConsistencyTokenFilter(Duration.ofSeconds(5), "secret");
+        List<String> reads = new ArrayList<>();
+
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/movies"), writeResponse, (request, response) -> reads.add(route.read()));
+        String token = writeResponse.getHeader(CONSISTENCY_TOKEN_HEADER);
+        assertNotNull(token);
+
+        MockHttpServletRequest readWithToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithToken.addHeader(CONSISTENCY_TOKEN_HEADER, token);
+        filter.doFilter(readWithToken, new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        MockHttpServletRequest readWithExpiredToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithExpiredToken.addHeader(CONSISTENCY_TOKEN_HEADER, token(System.currentTimeMillis() - 60_000, "secret"));
+        filter.doFilter(readWithExpiredToken, new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        MockHttpServletRequest readWithFutureToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithFutureToken.addHeader(CONSISTENCY_TOKEN_HEADER, token(System.currentTimeMillis() + 60_000, "secret"));
+        filter.doFilter(readWithFutureToken, new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        MockHttpServletRequest readWithForgedToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithForgedToken.addHeader(CONSISTENCY_TOKEN_HEADER, Long.MAX_VALUE + token.substring(token.indexOf('.')));
+        filter.doFilter(readWithForgedToken, new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        MockHttpServletRequest readWithUnsignedToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithUnsignedToken.addHeader(CONSISTENCY_TOKEN_HEADER, token.substring(0, token.indexOf('.')));
+        filter.doFilter(readWithUnsignedToken, new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        MockHttpServletRequest readWithForeignToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithForeignToken.addHeader(CONSISTENCY_TOKEN_HEADER, token);
+        new ConsistencyTokenFilter(Duration.ofSeconds(5), "other secret").doFilter(readWithForeignToken,
+                new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        MockHttpServletRequest readWithInvalidToken = new MockHttpServletRequest("GET", "/api/movies/1");
+        readWithInvalidToken.addHeader(CONSISTENCY_TOKEN_HEADER, "token");
+        filter.doFilter(readWithInvalidToken, new MockHttpServletResponse(), (request, response) -> reads.add(route.read()));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/movies/1"), new MockHttpServletResponse(),
+                (request, response) -> reads.add(route.read()));
+
+        assertEquals(List.of("primary", "primary", "replica1", "replica1", "replica1", "replica1", "replica1", "replica1", "replica1"), reads);
+        assertEquals("replica1", route.read());
+    }
+
+    @Test
+    public void testExportKeepsRouteOfRequest() throws Exception {
+        Route route = new Route(primary, List.of(replica1));
+        ObjectMapper objectMapper = new ObjectMapper();
+        StreamingResponseBody replicaExport = NdjsonBody.of(objectMapper, consumer -> consumer.accept(route.read()));
+        StreamingResponseBody primaryExport = ReadWriteRoutingDataSource.onPrimary(
+                () -> NdjsonBody.of(objectMapper, consumer -> consumer.accept(route.read())));
+
+        assertEquals("\"replica1\"\n", writeOnOtherThread(replicaExport));
+        assertEquals("\"primary\"\n", writeOnOtherThread(primaryExport));
+    }
+
+    /**
+     * Creates a token for the given write time the way the filter does.
+     */
+    private static String token(long writeTime, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] signature = mac.doFinal(Long.toString(writeTime).getBytes(StandardCharsets.US_ASCII));
+        return writeTime + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private static String writeOnOtherThread(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CompletableFuture.runAsync(() -> {
+            try {
+                body.writeTo(outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).get();
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(2);
+        pools.add(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS node");
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    /**
+     * Runs transactions the way the services do, through a lazy proxy in front of the routing data source.
+     */
+    private static class Route {
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readOnlyTransaction;
+        private final TransactionTemplate transaction;
+
+        Route(HikariDataSource primary, List<HikariDataSource> replicas) {
+            ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replicas);
+            routingDataSource.afterPropertiesSet();
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+            transaction = new TransactionTemplate(transactionManager);
+        }
+
+        String read() {
+            return readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        }
+
+        String write() {
+            return transaction.execute(status -> {
+                jdbcTemplate.update("UPDATE node SET name = name");
+                return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+            });
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package moviesApi.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActorIdsTest {
+
+    @Test
+    public void testKeepsDistinctIdsInOrder() {
+        ActorIds actorIds = new ActorIds(List.of(5L, 2L, 5L, 9L));
+        assertArrayEquals(new long[]{2, 5, 9}, actorIds.toSortedArray());
+        assertEquals(List.of(2L, 5L, 9L), new ArrayList<>(actorIds));
+        assertEquals(Set.of(2L, 5L, 9L), actorIds);
+        assertTrue(actorIds.contains(5L));
+        assertFalse(actorIds.contains(3L));
+        assertFalse(actorIds.contains("5"));
+    }
+
+    @Test
+    public void testChangesReplaceTheArray() {
+        ActorIds actorIds = new ActorIds(List.of(2L, 9L));
+        long[] sorted = actorIds.toSortedArray();
+
+        assertTrue(actorIds.add(5L));
+        assertFalse(actorIds.add(5L));
+        assertTrue(actorIds.addAll(List.of(1L, 9L)));
+        assertFalse(actorIds.addAll(List.of(1L, 2L)));
+        assertArrayEquals(new long[]{1, 2, 5, 9}, actorIds.toSortedArray());
+
+        assertTrue(actorIds.remove(2L));
+        assertFalse(actorIds.remove(2L));
+        assertArrayEquals(new long[]{1, 5, 9}, actorIds.toSortedArray());
+        assertArrayEquals(new long[]{2, 9}, sorted);
+
+        assertTrue(actorIds.retainAll(List.of(1L, 9L, 4L)));
+        assertFalse(actorIds.retainAll(Set.of(1L, 9L)));
+        assertTrue(actorIds.removeAll(List.of(9L, 4L)));
+        assertFalse(actorIds.removeAll(List.of(9L)));
+        assertArrayEquals(new long[]{1}, actorIds.toSortedArray());
+
+        actorIds.clear();
+        assertTrue(actorIds.isEmpty());
+        assertArrayEquals(new long[0], actorIds.toSortedArray());
+    }
+
+    @Test
+    public void testOfUnsorted() {
+        long[] ids = {9, 2, 9, 5, 7};
+        assertArrayEquals(new long[]{2, 5, 9}, ActorIds.ofUnsorted(ids, 4).toSortedArray());
+        assertArrayEquals(new long[0], ActorIds.ofUnsorted(new long[0], 0).toSortedArray());
+    }
+}
@@ -1,8 +1,7 @@
 package moviesApi.domain;
 
 import moviesApi.SecurityConfig;
-import org.junit.Test;
-import org.junit.runner.RunWith;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureTestEntityManager;
@@ -11,20 +10,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
-import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
-import static org.junit.Assert.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @AutoConfigureTestEntityManager
 @ComponentScan(basePackages = "moviesApi")
 @Import(SecurityConfig.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
-@RunWith(SpringRunner.class)
 @Transactional
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 public class DomainTest {
@@ -66,4 +69,28 @@ public class DomainTest {
 //        assertEquals("This is a great movie!", savedMovie.getReviews().get(0).getText());
 //        assertEquals(9.0f, savedMovie.getReviews().get(0).getRating(), 0.1f);
     }
+
+    @Test
+    public void testSortedActorIds() {
+        Movie movie = new Movie();
+        movie.setTitle("Inception");
+        movie.setGenre("Science Fiction");
+        movie.setReleaseYear(2010);
+        movie.setDirectorId(1L);
+        movie.setActorIds(new ArrayList<>(List.of(5L, 2L, 5L, 9L)));
+        entityManager.persist(movie);
+        entityManager.flush();
+        entityManager.clear();
+
+        Movie savedMovie = entityManager.find(Movie.class, movie.getId());
+        assertArrayEquals(new long[]{2, 5, 9}, savedMovie.getSortedActorIds());
+        assertSame(savedMovie.getSortedActorIds(), savedMovie.getSortedActorIds());
+        assertEquals(List.of(2L, 5L, 9L), new ArrayList<>(savedMovie.getActorIds()));
+        // the actor IDs are replaced rather than modified in place
+        assertThrows(UnsupportedOperationException.class, () -> savedMovie.getActorIds().add(1L));
+        savedMovie.setActorIds(new ArrayList<>(List.of(3L)));
+        assertArrayEquals(new long[]{3}, savedMovie.getSortedActorIds());
+        savedMovie.setActorIds(null);
+        assertArrayEquals(new long[0], savedMovie.getSortedActorIds());
+    }
 }
@@ -0,0 +1,174 @@
+package moviesApi.index;
+
+import moviesApi.domain.Movie;
+import moviesApi.filter.MovieFilter;
+import moviesApi.repository.MovieRepository;
+import moviesApi.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static moviesApi.util.TestHelper.generateMovieWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MovieBitmapIndexTest {
+    private static final String[] GENRES = {"Action", "Drama", "Comedy", "Horror"};
+
+    private final List<Movie> movies = new ArrayList<>();
+    private MovieTitleIndex titleIndex;
+    private MovieBitmapIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        Random random = new Random(42);
+        for (long id = 1; id <= 500; id++) {
+            List<Long> actorIds = LongStream.generate(() -> 1 + random.nextInt(20))
+                    .limit(1 + random.nextInt(4))
+                    .boxed()
+                    .collect(Collectors.toList());
+            Movie movie = generateMovieWithParams("Movie" + id, GENRES[random.nextInt(GENRES.length)],
+                    1990 + random.nextInt(30), 1L + random.nextInt(10), actorIds);
+            movie.setId(id);
+            movies.add(movie);
+        }
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        when(movieRepository.streamIndexRows()).thenReturn(movies.stream()
+                .map(movie -> new Object[]{movie.getId(), movie.getGenre(), movie.getReleaseYear(), movie.getDirectorId()}));
+        when(movieRepository.streamTitleRows()).thenReturn(movies.stream()
+                .map(movie -> new Object[]{movie.getId(), movie.getTitle()}));
+        when(movieRepository.streamActorRows()).thenReturn(movies.stream()
+                .flatMap(movie -> movie.getActorIds().stream().map(actorId -> new Object[]{movie.getId(), actorId})));
+        titleIndex = new MovieTitleIndex(movieRepository, true);
+        titleIndex.rebuild();
+        index = new MovieBitmapIndex(movieRepository, titleIndex, true);
+        index.rebuild();
+    }
+
+    @Test
+    public void testFindMatchesFilter() {
+        List<MovieFilter> filters = List.of(
+                MovieFilter.builder().build(),
+                MovieFilter.builder().withGenre(new String[]{"action", "DRAMA"}).build(),
+                MovieFilter.builder().withGenre(new String[]{"Western"}).build(),
+                MovieFilter.builder().withGenre(new String[]{}).build(),
+                MovieFilter.builder().withYear(2000).build(),
+                MovieFilter.builder().withFromYear(1995).withToYear(2005).build(),
+                MovieFilter.builder().withFromYear(2010).build(),
+                MovieFilter.builder().withFromYear(2010).withToYear(2000).build(),
+                MovieFilter.builder().withDirectorId(3L).withToYear(2000).build(),
+                MovieFilter.builder().withActorIds(new Long[]{1L, 2L}).build(),
+                MovieFilter.builder().withActorIds(new Long[]{5L, 99L}).build(),
+                MovieFilter.builder().withGenre(new String[]{"Comedy"}).withActorIds(new Long[]{7L}).withFromYear(2000).build());
+        for (MovieFilter filter : filters) {
+            assertEquals(expectedIds(filter), ids(index.find(filter).orElseThrow().toArray()));
+        }
+    }
+
+    @Test
+    public void testFindByTitle() {
+        List<MovieFilter> filters = List.of(
+                MovieFilter.builder().withTitle("movie1").build(),
+                MovieFilter.builder().withTitle("VIE25").build(),
+                MovieFilter.builder().withTitle("e4").withGenre(new String[]{"Drama"}).build(),
+                MovieFilter.builder().withTitle("7").withFromYear(2000).build(),
+                MovieFilter.builder().withTitle("").build(),
+                MovieFilter.builder().withTitle("Sequel").build());
+        for (MovieFilter filter : filters) {
+            assertEquals(expectedIds(filter), ids(index.find(filter).orElseThrow().toArray()));
+        }
+    }
+
+    @Test
+    public void testIndexAndRemove() {
+        MovieFilter filter = MovieFilter.builder().withGenre(new String[]{"Western"}).withActorIds(new Long[]{100L}).build();
+        Movie movie = generateMovieWithParams("New", "Western", 2020, 1L, List.of(100L, 101L));
+        movie.setId(1000L);
+        index.index(movie);
+        titleIndex.index(movie);
+        assertEquals(List.of(1000L), ids(index.find(filter).orElseThrow().toArray()));
+
+        movie.setGenre("Drama");
+        movie.setTitle("Renamed");
+        index.index(movie);
+        titleIndex.index(movie);
+        assertTrue(index.find(filter).orElseThrow().isEmpty());
+        assertTrue(index.find(MovieFilter.builder().withTitle("new").build()).orElseThrow().isEmpty());
+        assertEquals(List.of(1000L), ids(index.find(MovieFilter.builder().withTitle("NAMED").build()).orElseThrow().toArray()));
+        assertTrue(index.find(MovieFilter.builder().withGenre(new String[]{"Drama"}).build()).orElseThrow().contains(1000));
+
+        index.remove(1000L);
+        titleIndex.remove(1000L);
+        assertFalse(index.find(MovieFilter.builder().build()).orElseThrow().contains(1000));
+    }
+
+    @Test
+    public void testFindPage() {
+        MovieFilter filter = MovieFilter.builder().withGenre(new String[]{"Action"}).build();
+        List<Long> expected = expectedIds(filter);
+        List<Long> expectedDesc = new ArrayList<>(expected);
+        Collections.reverse(expectedDesc);
+
+        Pageable secondPage = PageRequest.of(1, 5, Sort.by(Sort.Order.asc("id")));
+        assertEquals(expected.subList(5, 10), index.findPage(filter, secondPage, null).orElseThrow());
+
+        Sort descending = Sort.by(Sort.Order.desc("id"));
+        assertEquals(expectedDesc.subList(5, 10), index.findPage(filter, PageRequest.of(1, 5, descending), null).orElseThrow());
+
+        Movie last = movies.get((int) (expected.get(4) - 1));
+        String token = PageCursor.next(List.of(last), PageRequest.of(0, 1, Sort.by(Sort.Order.asc("id"))), Movie::getId);
+        PageCursor cursor = PageCursor.decode(token, Sort.by(Sort.Order.asc("id")), Movie.class);
+        assertEquals(expected.subList(5, 10), index.findPage(filter, PageRequest.of(0, 5, Sort.by(Sort.Order.asc("id"))), cursor).orElseThrow());
+
+        assertTrue(index.findPage(filter, PageRequest.of(0, 5, Sort.by(Sort.Order.asc("title"))), null).isEmpty());
+    }
+
+    @Test
+    public void testDisabledIndexIsNotAnswered() {
+        MovieBitmapIndex disabled = new MovieBitmapIndex(mock(MovieRepository.class), mock(MovieTitleIndex.class), false);
+        disabled.rebuild();
+        assertFalse(disabled.isReady());
+        assertTrue(disabled.find(MovieFilter.builder().build()).isEmpty());
+    }
+
+    @Test
+    public void testTitleIsNotAnsweredWithoutTitleIndex() {
+        MovieTitleIndex disabled = new MovieTitleIndex(mock(MovieRepository.class), false);
+        disabled.rebuild();
+        MovieBitmapIndex withoutTitles = new MovieBitmapIndex(mock(MovieRepository.class), disabled, true);
+        withoutTitles.rebuild();
+        assertTrue(withoutTitles.find(MovieFilter.builder().build()).isPresent());
+        assertTrue(withoutTitles.find(MovieFilter.builder().withTitle("movie").build()).isEmpty());
+    }
+
+    private List<Long> expectedIds(MovieFilter filter) {
+        return movies.stream()
+                .filter(movie -> matches(filter, movie))
+                .map(Movie::getId).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Evaluates a filter like its specification does in the database.
+     */
+    private static boolean matches(MovieFilter filter, Movie movie) {
+        return (filter.getTitle() == null || movie.getTitle().toLowerCase().contains(filter.getTitle().toLowerCase()))
+                && (filter.getGenres() == null || Arrays.stream(filter.getGenres()).anyMatch(movie.getGenre()::equalsIgnoreCase))
+                && (filter.getYear() == null || movie.getReleaseYear().equals(filter.getYear()))
+                && (filter.getFromYear() == null || movie.getReleaseYear() >= filter.getFromYear())
+                && (filter.getToYear() == null || movie.getReleaseYear() <= filter.getToYear())
+                && (filter.getDirectorId() == null || movie.getDirectorId().equals(filter.getDirectorId()))
+                && (filter.getActorIds() == null || movie.getActorIds().containsAll(Arrays.asList(filter.getActorIds())));
+    }
+
+    private static List<Long> ids(int[] ids) {
+        return Arrays.stream(ids).mapToLong(id -> id).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,63 @@
+package moviesApi.index;
+
+import moviesApi.domain.Movie;
+import moviesApi.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static moviesApi.util.TestHelper.generateMovieWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MovieTitleIndexTest {
+    private MovieTitleIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        when(movieRepository.streamTitleRows()).thenReturn(Stream.of(
+                new Object[]{1L, "The Dark Knight"},
+                new Object[]{2L, "Knight and Day"},
+                new Object[]{3L, "Dark Night"}));
+        index = new MovieTitleIndex(movieRepository, true);
+        index.rebuild();
+    }
+
+    @Test
+    public void testFind() {
+        assertEquals(RoaringBitmap.bitmapOf(1, 2), index.find("KNIGHT").orElseThrow());
+        assertEquals(RoaringBitmap.bitmapOf(3), index.find("dark night").orElseThrow());
+        assertTrue(index.find("matrix").orElseThrow().isEmpty());
+        // too short to be looked up by trigrams, unless the candidates are given
+        assertTrue(index.find("da").isEmpty());
+        assertEquals(RoaringBitmap.bitmapOf(1, 3), index.find("da", RoaringBitmap.bitmapOf(1, 3)).orElseThrow());
+    }
+
+    @Test
+    public void testIndexAndRemove() {
+        Movie movie = generateMovieWithParams("Night Watch", "Drama", 2004, 1L, List.of(1L));
+        movie.setId(4L);
+        index.index(movie);
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 3, 4), index.find("night").orElseThrow());
+
+        movie.setTitle("Day Watch");
+        index.index(movie);
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 3), index.find("night").orElseThrow());
+        assertEquals(RoaringBitmap.bitmapOf(4), index.find("watch").orElseThrow());
+
+        index.remove(4L);
+        assertTrue(index.find("watch").orElseThrow().isEmpty());
+    }
+
+    @Test
+    public void testDisabledIndexIsNotAnswered() {
+        MovieTitleIndex disabled = new MovieTitleIndex(mock(MovieRepository.class), false);
+        disabled.rebuild();
+        assertTrue(disabled.find("knight").isEmpty());
+    }
+}
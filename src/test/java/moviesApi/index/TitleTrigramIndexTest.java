@@ -0,0 +1,34 @@
+package moviesApi.index;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TitleTrigramIndexTest {
+
+    @Test
+    public void testFindVerifiesCandidates() {
+        TitleTrigramIndex index = new TitleTrigramIndex();
+        index.add(1, "The Dark Knight");
+        index.add(2, "Knight and Day");
+        index.add(3, "Dark Night");
+        RoaringBitmap all = RoaringBitmap.bitmapOf(1, 2, 3);
+
+        assertEquals(RoaringBitmap.bitmapOf(1, 2), index.find("KNIGHT", all));
+        assertEquals(RoaringBitmap.bitmapOf(3), index.find("dark night", all));
+        assertEquals(RoaringBitmap.bitmapOf(1, 3), index.find("da", RoaringBitmap.bitmapOf(1, 3)));
+        assertEquals(RoaringBitmap.bitmapOf(2), index.find("knight", RoaringBitmap.bitmapOf(2, 3)));
+        assertTrue(index.find("matrix", all).isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        TitleTrigramIndex index = new TitleTrigramIndex();
+        index.add(1, "Alien");
+        index.add(2, "Aliens");
+        index.remove(1);
+
+        assertEquals(RoaringBitmap.bitmapOf(2), index.find("alien", RoaringBitmap.bitmapOf(1, 2)));
+    }
+}
@@ -0,0 +1,104 @@
+package moviesApi.service.impl;
+
+import moviesApi.domain.Person;
+import moviesApi.dto.BulkItemResult;
+import moviesApi.repository.FilterableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static moviesApi.util.TestHelper.generatePersonWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class BulkWriterTest {
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final List<List<Person>> committed = new ArrayList<>();
+    private PlatformTransactionManager transactionManager;
+    private FilterableRepository<Person, Long> repository;
+    private BulkWriter bulkWriter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        repository = mock(FilterableRepository.class);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Person> persons = invocation.getArgument(0);
+            if (persons.stream().anyMatch(person -> person.getFirstName().equals("Duplicate"))) {
+                throw new DataIntegrityViolationException("Duplicate entry");
+            }
+            persons.forEach(person -> person.setId(nextId.getAndIncrement()));
+            return persons;
+        });
+        bulkWriter = new BulkWriter(transactionManager, 3);
+    }
+
+    @Test
+    public void testFailedInsertOnlyFailsOffendingItems() {
+        List<Person> persons = persons("First", "Duplicate", "Third", "Fourth", "Duplicate");
+
+        List<BulkItemResult> results = bulkWriter.write(persons, person -> person.setId(null), repository, Person::getId,
+                committed::add);
+
+        assertCreated(results, 0, 2, 3);
+        assertEquals("Duplicate entry", results.get(1).getError());
+        assertEquals("Duplicate entry", results.get(4).getError());
+        assertEquals(List.of("First", "Third", "Fourth"), committed.stream()
+                .flatMap(List::stream).map(Person::getFirstName).toList());
+    }
+
+    @Test
+    public void testFailedAfterSaveOnlyFailsOffendingItems() {
+        List<Person> persons = persons("First", "Second", "Broken");
+
+        List<BulkItemResult> results = bulkWriter.write(persons, person -> person.setId(null), repository, Person::getId,
+                saved -> saved.forEach(person -> {
+                    if (person.getFirstName().equals("Broken")) {
+                        throw new IllegalStateException("Cannot count the movies of the person");
+                    }
+                }), committed::add);
+
+        assertCreated(results, 0, 1);
+        assertEquals("Cannot count the movies of the person", results.get(2).getError());
+        assertEquals(2, committed.size());
+    }
+
+    @Test
+    public void testUnavailableDatabaseFailsBatchWithoutRetries() {
+        when(transactionManager.getTransaction(any())).thenThrow(new CannotCreateTransactionException("Connection is not available"));
+        List<Person> persons = persons("First", "Second", "Third", "Fourth");
+
+        List<BulkItemResult> results = bulkWriter.write(persons, person -> person.setId(null), repository, Person::getId);
+
+        results.forEach(result -> assertEquals("Connection is not available", result.getError()));
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(repository, never()).saveAll(anyList());
+    }
+
+    private static List<Person> persons(String... firstNames) {
+        List<Person> persons = new ArrayList<>();
+        for (String firstName : firstNames) {
+            persons.add(generatePersonWithParams(firstName, "Person", LocalDate.of(1980, 1, 1)));
+        }
+        return persons;
+    }
+
+    private static void assertCreated(List<BulkItemResult> results, int... indexes) {
+        for (int index : indexes) {
+            assertNull(results.get(index).getError());
+            assertNotNull(results.get(index).getId());
+        }
+    }
+}
@@ -1,13 +1,58 @@
 package moviesApi.service.impl;
 
-import org.junit.Test;
+import moviesApi.repository.ReviewRepository;
+import moviesApi.summary.MovieRatings;
+import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 import static moviesApi.service.impl.ReviewServiceImpl.getRatingGroup;
-import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 public class ReviewServiceImplTest {
+    private static final List<Float[]> RATING_GROUP_LIMITS = Arrays.asList(
+            new Float[]{1f, 4.9f},
+            new Float[]{5f, 7.9f},
+            new Float[]{8f, 10f});
+
+    @Test
+    public void testGetMovieCountByRatingFromMovieRatings() {
+        ReviewRepository reviewRepository = mock(ReviewRepository.class);
+        when(reviewRepository.streamRatingAggregates()).thenAnswer(invocation -> Stream.of(
+                new Object[]{1L, 6.0, 2L, 2f, 4f},
+                new Object[]{2L, 8.0, 1L, 8f, 8f},
+                new Object[]{3L, 17.0, 2L, 8f, 9f}));
+        MovieRatings movieRatings = new MovieRatings(reviewRepository, true);
+        movieRatings.rebuild();
+        ReviewServiceImpl reviewService = new ReviewServiceImpl(reviewRepository, null, movieRatings, null);
+
+        assertEquals(Map.of("1.0-4.9", 1L, "5.0-7.9", 0L, "8.0-10.0", 2L),
+                toMap(reviewService.getMovieCountByRating(RATING_GROUP_LIMITS)));
+        verify(reviewRepository, never()).countMoviesByAverageRating(any());
+    }
+
+    @Test
+    public void testGetMovieCountByRatingFallsBackToQuery() {
+        ReviewRepository reviewRepository = mock(ReviewRepository.class);
+        when(reviewRepository.countMoviesByAverageRating(RATING_GROUP_LIMITS)).thenReturn(Map.of(0, 1L, 2, 2L));
+        MovieRatings movieRatings = new MovieRatings(reviewRepository, false);
+        movieRatings.rebuild();
+        ReviewServiceImpl reviewService = new ReviewServiceImpl(reviewRepository, null, movieRatings, null);
+
+        assertEquals(Map.of("1.0-4.9", 1L, "5.0-7.9", 0L, "8.0-10.0", 2L),
+                toMap(reviewService.getMovieCountByRating(RATING_GROUP_LIMITS)));
+        verify(reviewRepository, never()).streamRatingAggregates();
+    }
+
+    private static Map<String, Long> toMap(List<Map<String, Long>> counts) {
+        Map<String, Long> map = new HashMap<>();
+        counts.forEach(map::putAll);
+        return map;
+    }
+
     @Test
     public void testCreateRatingGroups() {
         List<Float[]> ratingGroupLimits = Arrays.asList(
@@ -0,0 +1,164 @@
+package moviesApi.summary;
+
+import moviesApi.domain.Review;
+import moviesApi.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static moviesApi.util.TestHelper.generateReviewWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class MovieRatingsTest {
+    private final List<Review> reviews = new ArrayList<>();
+    private ReviewRepository reviewRepository;
+    private MovieRatings ratings;
+
+    @BeforeEach
+    public void setUp() {
+        addReviews(1L, 2f, 5f, 9f);
+        addReviews(2L, 7f);
+        addReviews(3L, 4f, 4f);
+        reviewRepository = mock(ReviewRepository.class);
+        when(reviewRepository.streamRatingAggregates()).thenAnswer(invocation -> reviews.stream()
+                .collect(Collectors.groupingBy(Review::getMovieId))
+                .entrySet().stream()
+                .map(entry -> {
+                    DoubleSummaryStatistics statistics = ratingsOf(entry.getValue());
+                    return new Object[]{entry.getKey(), statistics.getSum(), statistics.getCount(),
+                            (float) statistics.getMin(), (float) statistics.getMax()};
+                }));
+        when(reviewRepository.findRatingRange(anyLong())).thenAnswer(this::ratingRange);
+        ratings = new MovieRatings(reviewRepository, true);
+    }
+
+    @Test
+    public void testRebuildAggregatesReviews() {
+        ratings.rebuild();
+        RatingAggregate aggregate = ratings.get(1L).orElseThrow();
+        assertEquals(3, aggregate.getCount());
+        assertEquals(16.0, aggregate.getSum(), 1e-6);
+        assertEquals(2f, aggregate.getMin());
+        assertEquals(9f, aggregate.getMax());
+        assertTrue(ratings.get(4L).isEmpty());
+        assertAggregatesMatchReviews();
+    }
+
+    @Test
+    public void testWritesKeepAggregatesConsistent() {
+        ratings.rebuild();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            int operation = random.nextInt(3);
+            if (operation == 0 || reviews.isEmpty()) {
+                Review review = generateReviewWithParams(1L + random.nextInt(25), 1 + random.nextInt(10), "Review", LocalDateTime.now());
+                reviews.add(review);
+                ratings.add(review.getMovieId(), review.getRating());
+            } else if (operation == 1) {
+                Review review = reviews.remove(random.nextInt(reviews.size()));
+                ratings.remove(review.getMovieId(), review.getRating());
+            } else {
+                Review review = reviews.get(random.nextInt(reviews.size()));
+                float oldRating = review.getRating();
+                review.setRating((float) (1 + random.nextInt(10)));
+                ratings.change(review.getMovieId(), oldRating, review.getRating());
+            }
+        }
+        assertAggregatesMatchReviews();
+    }
+
+    @Test
+    public void testRangeIsReadOnlyWhenABoundIsRemoved() {
+        ratings.rebuild();
+
+        reviews.remove(1);
+        ratings.remove(1L, 5f);
+        verify(reviewRepository, never()).findRatingRange(anyLong());
+
+        reviews.remove(1);
+        ratings.remove(1L, 9f);
+        verify(reviewRepository).findRatingRange(1L);
+        assertAggregatesMatchReviews();
+    }
+
+    @Test
+    public void testRemoveRetriesAfterConcurrentWrite() {
+        ratings.rebuild();
+        reviews.remove(2);
+        doAnswer(invocation -> {
+            Review concurrent = generateReviewWithParams(1L, 1f, "Review", LocalDateTime.now());
+            reviews.add(concurrent);
+            ratings.add(concurrent.getMovieId(), concurrent.getRating());
+            return ratingRange(invocation);
+        }).doAnswer(this::ratingRange).when(reviewRepository).findRatingRange(1L);
+
+        ratings.remove(1L, 9f);
+
+        verify(reviewRepository, times(2)).findRatingRange(1L);
+        assertEquals(1f, ratings.get(1L).orElseThrow().getMin());
+        assertEquals(5f, ratings.get(1L).orElseThrow().getMax());
+        assertAggregatesMatchReviews();
+    }
+
+    @Test
+    public void testRemovingLastReviewRemovesAggregate() {
+        ratings.rebuild();
+        reviews.removeIf(review -> review.getMovieId() == 2L);
+        ratings.remove(2L, 7f);
+        assertTrue(ratings.get(2L).isEmpty());
+        verify(reviewRepository, never()).findRatingRange(anyLong());
+        assertAggregatesMatchReviews();
+    }
+
+    @Test
+    public void testRemoveMovie() {
+        ratings.rebuild();
+        reviews.removeIf(review -> review.getMovieId() == 3L);
+        ratings.removeMovie(3L);
+        assertTrue(ratings.get(3L).isEmpty());
+        assertAggregatesMatchReviews();
+    }
+
+    private void assertAggregatesMatchReviews() {
+        Map<Long, List<Review>> reviewsByMovie = reviews.stream().collect(Collectors.groupingBy(Review::getMovieId));
+        Map<Long, RatingAggregate> aggregates = ratings.getAll().orElseThrow();
+        assertEquals(reviewsByMovie.keySet(), aggregates.keySet());
+        reviewsByMovie.forEach((movieId, movieReviews) -> {
+            DoubleSummaryStatistics statistics = ratingsOf(movieReviews);
+            RatingAggregate aggregate = aggregates.get(movieId);
+            assertEquals(statistics.getCount(), aggregate.getCount());
+            assertEquals(statistics.getSum(), aggregate.getSum(), 1e-6);
+            assertEquals(statistics.getAverage(), aggregate.getAverage(), 1e-6);
+            assertEquals((float) statistics.getMin(), aggregate.getMin());
+            assertEquals((float) statistics.getMax(), aggregate.getMax());
+        });
+    }
+
+    private List<Object[]> ratingRange(InvocationOnMock invocation) {
+        Long movieId = invocation.getArgument(0);
+        List<Review> movieReviews = reviews.stream()
+                .filter(review -> review.getMovieId().equals(movieId))
+                .collect(Collectors.toList());
+        if (movieReviews.isEmpty()) {
+            return Collections.singletonList(new Object[]{null, null});
+        }
+        DoubleSummaryStatistics statistics = ratingsOf(movieReviews);
+        return Collections.singletonList(new Object[]{(float) statistics.getMin(), (float) statistics.getMax()});
+    }
+
+    private void addReviews(Long movieId, float... movieRatings) {
+        for (float rating : movieRatings) {
+            reviews.add(generateReviewWithParams(movieId, rating, "Review", LocalDateTime.now()));
+        }
+    }
+
+    private static DoubleSummaryStatistics ratingsOf(List<Review> reviews) {
+        return reviews.stream().mapToDouble(Review::getRating).summaryStatistics();
+    }
+}
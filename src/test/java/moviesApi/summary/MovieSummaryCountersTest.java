@@ -0,0 +1,84 @@
+package moviesApi.summary;
+
+import moviesApi.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MovieSummaryCountersTest {
+    private final List<Object[]> rows = new ArrayList<>();
+    private MovieSummaryCounters counters;
+
+    @BeforeEach
+    public void setUp() {
+        rows.add(new Object[]{"Drama", 1994, 1L});
+        rows.add(new Object[]{"Drama", 1999, 2L});
+        rows.add(new Object[]{"Action", 1999, 1L});
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        when(movieRepository.streamSummaryRows()).thenAnswer(invocation -> rows.stream());
+        counters = new MovieSummaryCounters(movieRepository, true);
+        counters.rebuild();
+    }
+
+    @Test
+    public void testRebuildCountsRows() {
+        assertEquals(Map.of("Drama", 2L, "Action", 1L), counters.countByGenre().orElseThrow());
+        assertEquals(Map.of(1994, 1L, 1999, 2L), counters.countByReleaseYear().orElseThrow());
+        assertEquals(Map.of(1L, 2L, 2L, 1L), counters.countByDirector().orElseThrow());
+    }
+
+    @Test
+    public void testUpdateMovesCountBetweenKeys() {
+        counters.decrement("Drama", 1994, 1L);
+        counters.increment("Comedy", 2001, 3L);
+        assertEquals(Map.of("Drama", 1L, "Action", 1L, "Comedy", 1L), counters.countByGenre().orElseThrow());
+        assertEquals(Map.of(1999, 2L, 2001, 1L), counters.countByReleaseYear().orElseThrow());
+        assertEquals(Map.of(1L, 1L, 2L, 1L, 3L, 1L), counters.countByDirector().orElseThrow());
+    }
+
+    @Test
+    public void testKeysWithoutMoviesAreLeftOut() {
+        counters.increment("Western", 2021, 42L);
+        counters.decrement("Western", 2021, 42L);
+        assertFalse(counters.countByGenre().orElseThrow().containsKey("Western"));
+        assertFalse(counters.countByReleaseYear().orElseThrow().containsKey(2021));
+        assertFalse(counters.countByDirector().orElseThrow().containsKey(42L));
+    }
+
+    @Test
+    public void testConcurrentWrites() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            boolean create = i % 2 == 0;
+            executor.execute(() -> {
+                if (create) {
+                    counters.increment("Western", 2021, 42L);
+                } else {
+                    counters.increment("Western", 2021, 42L);
+                    counters.decrement("Western", 2021, 42L);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(4_000L, counters.countByGenre().orElseThrow().get("Western"));
+        assertEquals(4_000L, counters.countByDirector().orElseThrow().get(42L));
+    }
+
+    @Test
+    public void testRebuildDropsCountsNotInTheDatabase() {
+        counters.increment("Western", 2021, 42L);
+        rows.remove(2);
+        counters.rebuild();
+        assertEquals(Map.of("Drama", 2L), counters.countByGenre().orElseThrow());
+        assertEquals(Map.of(1L, 1L, 2L, 1L), counters.countByDirector().orElseThrow());
+    }
+}
@@ -0,0 +1,57 @@
+package moviesApi.util;
+
+import moviesApi.domain.Movie;
+import moviesApi.domain.Person;
+import moviesApi.dto.MovieRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static moviesApi.util.TestHelper.generateMovieWithParams;
+import static moviesApi.util.TestHelper.generatePersonWithParams;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class ETagsTest {
+
+    @Test
+    public void testMovieTagEqualsTagByParts() {
+        Person director = person(1L, 3L);
+        Person actor = person(2L, 5L);
+        MovieRecord movieRecord = record(director, Set.of(actor));
+        assertEquals(ETags.ofMovie(7L, 2, 8, 4L, 3.5), ETags.of(movieRecord));
+    }
+
+    @Test
+    public void testMovieTagChangesWhenAnActorIsDeleted() {
+        Person director = person(1L, 3L);
+        Person deleted = person(2L, 2L);
+        Person updated = person(3L, 1L);
+        String tag = ETags.of(record(director, Set.of(deleted, updated)));
+
+        // the deleted actor drops out, and updates to another person restore the sum of the versions
+        updated.setVersion(3L);
+        assertNotEquals(tag, ETags.of(record(director, Set.of(updated))));
+    }
+
+    private static MovieRecord record(Person director, Set<Person> actors) {
+        Movie movie = generateMovieWithParams("Movie", "Drama", 2000, director.getId(), List.of(2L, 3L));
+        movie.setId(10L);
+        movie.setVersion(7L);
+        MovieRecord movieRecord = new MovieRecord(movie);
+        movieRecord.setDirector(director);
+        movieRecord.setActors(actors);
+        movieRecord.setReviewCount(4L);
+        movieRecord.setAverageRating(3.5);
+        return movieRecord;
+    }
+
+    private static Person person(Long id, Long version) {
+        Person person = generatePersonWithParams("First" + id, "Last" + id, LocalDate.of(1980, 1, 1));
+        person.setId(id);
+        person.setVersion(version);
+        return person;
+    }
+}
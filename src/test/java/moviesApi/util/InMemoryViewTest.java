@@ -0,0 +1,204 @@
+package moviesApi.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryViewTest {
+
+    @Test
+    public void testNotReadyBeforeRebuild() {
+        ListView view = new ListView(true);
+        assertFalse(view.isReady());
+        assertTrue(view.values().isEmpty());
+        view.rebuild();
+        assertTrue(view.isReady());
+        assertEquals(List.of("loaded"), view.values().orElseThrow());
+    }
+
+    @Test
+    public void testDisabled() {
+        ListView view = new ListView(false);
+        view.rebuild();
+        view.add("written");
+        view.addExclusively("written");
+        assertFalse(view.isReady());
+        assertTrue(view.values().isEmpty());
+        assertTrue(view.stored.isEmpty());
+    }
+
+    @Test
+    public void testFailedLoadLeavesViewNotReady() {
+        ListView view = new ListView(true);
+        view.rebuild();
+        view.failLoad = true;
+        assertThrows(IllegalStateException.class, view::rebuild);
+        assertFalse(view.isReady());
+        assertTrue(view.values().isEmpty());
+    }
+
+    @Test
+    public void testWritesWaitForLoad() throws Exception {
+        ListView view = new ListView(true);
+        view.loadStarted = new CountDownLatch(1);
+        view.loadReleased = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> rebuild = executor.submit(view::rebuild);
+            assertTrue(view.loadStarted.await(10, TimeUnit.SECONDS));
+            Future<?> write = executor.submit(() -> view.add("written"));
+            Thread.sleep(100);
+            assertFalse(write.isDone());
+            view.loadReleased.countDown();
+            rebuild.get(10, TimeUnit.SECONDS);
+            write.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of("loaded", "written"), view.values().orElseThrow());
+    }
+
+    @Test
+    public void testLoadWaitsForCommittedWrites() throws Exception {
+        ListView view = new ListView(true);
+        view.rebuild();
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch applied = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> write = executor.submit(() -> inTransaction(view, "written", () -> {
+                committed.countDown();
+                await(applied);
+            }, true));
+            assertTrue(committed.await(10, TimeUnit.SECONDS));
+            // the write is in the database, but not applied to the view yet
+            Future<?> rebuild = executor.submit(view::rebuild);
+            Thread.sleep(100);
+            assertFalse(rebuild.isDone());
+            applied.countDown();
+            write.get(10, TimeUnit.SECONDS);
+            rebuild.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of("loaded", "written"), view.values().orElseThrow());
+    }
+
+    @Test
+    public void testCommitWaitsForLoad() throws Exception {
+        ListView view = new ListView(true);
+        view.loadStarted = new CountDownLatch(1);
+        view.loadReleased = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> rebuild = executor.submit(view::rebuild);
+            assertTrue(view.loadStarted.await(10, TimeUnit.SECONDS));
+            Future<?> write = executor.submit(() -> inTransaction(view, "written", () -> {
+            }, true));
+            Thread.sleep(100);
+            assertFalse(write.isDone());
+            assertTrue(view.database.isEmpty());
+            view.loadReleased.countDown();
+            rebuild.get(10, TimeUnit.SECONDS);
+            write.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of("loaded", "written"), view.values().orElseThrow());
+    }
+
+    @Test
+    public void testRolledBackWriteIsNotApplied() {
+        ListView view = new ListView(true);
+        view.rebuild();
+        inTransaction(view, "written", () -> {
+        }, false);
+        view.rebuild();
+        assertEquals(List.of("loaded"), view.values().orElseThrow());
+    }
+
+    /**
+     * Writes the given value to the database of the view in a simulated transaction,
+     * which commits or fails to commit after its commit has started.
+     */
+    private static void inTransaction(ListView view, String value, Runnable afterWrite, boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            InMemoryView.applyAfterCommit(() -> view.add(value));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            if (commit) {
+                view.database.add(value);
+                afterWrite.run();
+                TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            }
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, commit
+                    ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class ListView extends InMemoryView {
+        private final List<String> database = new CopyOnWriteArrayList<>();
+        private final List<String> stored = new ArrayList<>();
+        private boolean failLoad;
+        private CountDownLatch loadStarted;
+        private CountDownLatch loadReleased;
+
+        ListView(boolean enabled) {
+            super(enabled);
+        }
+
+        @Override
+        protected void load() {
+            stored.clear();
+            if (failLoad) {
+                throw new IllegalStateException("Database is not available");
+            }
+            if (loadStarted != null) {
+                loadStarted.countDown();
+                try {
+                    loadReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            stored.add("loaded");
+            stored.addAll(database);
+        }
+
+        void add(String value) {
+            update(() -> stored.add(value));
+        }
+
+        void addExclusively(String value) {
+            updateExclusively(() -> stored.add(value));
+        }
+
+        Optional<List<String>> values() {
+            return read(() -> List.copyOf(stored));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package moviesApi.util;
+
+import moviesApi.domain.Movie;
+import moviesApi.domain.Person;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static moviesApi.util.TestHelper.generateMovieWithParams;
+import static moviesApi.util.TestHelper.generatePersonWithParams;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    public void testNextCursorRoundTrip() {
+        Movie movie1 = generateMovieWithParams("Movie1", "Drama", 2000, 1L, Arrays.asList(1L, 2L));
+        movie1.setId(10L);
+        Movie movie2 = generateMovieWithParams("Movie2", "Drama", 2001, 1L, Arrays.asList(1L, 2L));
+        movie2.setId(11L);
+        Sort sort = Sort.by(Sort.Order.desc("releaseYear"));
+        Pageable pageable = PageRequest.of(0, 2, sort);
+
+        String token = PageCursor.next(List.of(movie1, movie2), pageable, Movie::getId);
+        assertNotNull(token);
+
+        PageCursor cursor = PageCursor.decode(token, sort, Movie.class);
+        assertEquals("releaseYear", cursor.getProperty());
+        assertEquals(Sort.Direction.DESC, cursor.getDirection());
+        assertEquals(token, cursor.encode());
+    }
+
+    @Test
+    public void testNextCursorOfLastPage() {
+        Movie movie = generateMovieWithParams("Movie1", "Drama", 2000, 1L, Arrays.asList(1L, 2L));
+        movie.setId(10L);
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("id"));
+
+        assertNull(PageCursor.next(List.of(movie), pageable, Movie::getId));
+        assertNull(PageCursor.next(List.<Movie>of(), pageable, Movie::getId));
+    }
+
+    @Test
+    public void testNextCursorWithNullSortKey() {
+        Person person = generatePersonWithParams("First", "Last", null);
+        person.setId(5L);
+        Sort sort = Sort.by(Sort.Order.asc("birthDate"));
+
+        String token = PageCursor.next(List.of(person), PageRequest.of(0, 1, sort), Person::getId);
+        assertEquals(token, PageCursor.decode(token, sort, Person.class).encode());
+
+        person.setBirthDate(LocalDate.of(1990, 1, 1));
+        token = PageCursor.next(List.of(person), PageRequest.of(0, 1, sort), Person::getId);
+        assertEquals(token, PageCursor.decode(token, sort, Person.class).encode());
+    }
+
+    @Test
+    public void testDecodeWithDifferentSort() {
+        Movie movie = generateMovieWithParams("Movie1", "Drama", 2000, 1L, Arrays.asList(1L, 2L));
+        movie.setId(10L);
+        String token = PageCursor.next(List.of(movie), PageRequest.of(0, 1, Sort.by("title")), Movie::getId);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(token, Sort.by(Sort.Order.desc("title")), Movie.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(token, Sort.by("genre"), Movie.class));
+    }
+
+    @Test
+    public void testDecodeInvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode("not a cursor!", Sort.by("id"), Movie.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode("aWQKQVNDCmFiYw", Sort.by("id"), Movie.class));
+    }
+
+    @Test
+    public void testWithIdTiebreaker() {
+        assertEquals(Sort.by(Sort.Order.asc("id")), PageCursor.withIdTiebreaker(Sort.unsorted()));
+        assertEquals(Sort.by(Sort.Order.desc("id")), PageCursor.withIdTiebreaker(Sort.by(Sort.Order.desc("id"))));
+        assertEquals(Sort.by(Sort.Order.desc("title"), Sort.Order.desc("id")),
+                PageCursor.withIdTiebreaker(Sort.by(Sort.Order.desc("title"))));
+    }
+}
@@ -1,8 +1,11 @@
 package moviesApi.util;
 
 import static moviesApi.util.Utilities.mapsToListOfSingletonMaps;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Collections;
@@ -10,7 +13,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Sort;
 
 public class UtilitiesTest {
@@ -64,4 +67,45 @@ public class UtilitiesTest {
                     "Expected list of singleton maps to contain map: " + singletonMap);
         }
     }
-}
+
+    @Test
+    public void testEscapeLike() {
+        assertEquals("plain title", Utilities.escapeLike("plain title"));
+        assertEquals("100\\% \\_test", Utilities.escapeLike("100% _test"));
+        assertEquals("back\\\\slash", Utilities.escapeLike("back\\slash"));
+    }
+
+    @Test
+    public void testParseRatingGroupLimits() {
+        List<Float[]> result = Utilities.parseRatingGroupLimits("1-4.9, 5-7.9,8-10");
+        assertEquals(3, result.size());
+        assertEquals(1f, result.get(0)[0], 0);
+        assertEquals(4.9f, result.get(0)[1], 0);
+        assertEquals(5f, result.get(1)[0], 0);
+        assertEquals(10f, result.get(2)[1], 0);
+    }
+
+    @Test
+    public void testParseInvalidRatingGroupLimits() {
+        for (String buckets : new String[]{"", "1", "1-", "a-5", "1-5-7", "5-1", "0-5", "1-11", "1-5,5-10", "1-5,2-3"}) {
+            assertThrows(IllegalArgumentException.class, () -> Utilities.parseRatingGroupLimits(buckets), buckets);
+        }
+    }
+
+    @Test
+    public void testParseNonFiniteRatingGroupLimits() {
+        for (String buckets : new String[]{"NaN-5", "1-NaN", "NaN-NaN", "Infinity-10", "1-Infinity", "1-5,NaN-10"}) {
+            assertThrows(IllegalArgumentException.class, () -> Utilities.parseRatingGroupLimits(buckets), buckets);
+        }
+    }
+
+    @Test
+    public void testToSortedDistinctArray() {
+        assertArrayEquals(new long[]{1, 3, 7}, Utilities.toSortedDistinctArray(List.of(7L, 3L, 1L, 3L, 7L)));
+        assertArrayEquals(new long[]{2}, Utilities.toSortedDistinctArray(List.of(2L)));
+        assertArrayEquals(new long[0], Utilities.toSortedDistinctArray(List.of()));
+        assertArrayEquals(new long[]{1, 3, 7}, Utilities.toSortedDistinctArray(new long[]{7, 3, 1, 3, 7}));
+        long[] distinct = {4, 2};
+        assertSame(distinct, Utilities.toSortedDistinctArray(distinct));
+        assertArrayEquals(new long[]{2, 4}, distinct);
+    }}